@@ -0,0 +1,35 @@
+@echo off
+rem Starts the stand-alone patternCoder.
+rem
+rem On Java 13 and later the start uses a class data sharing archive created
+rem by a headless training run (org.patterncoder.StartupTraining), see
+rem patterncoder.sh. The name of the archive contains the size and the
+rem modification time of the jar, so an updated jar gets a new archive and
+rem the old one is deleted. Set PATTERNCODER_CDS=off to start without the
+rem archive.
+
+setlocal
+set JAR=%~dp0patterncoder.jar
+if defined JAVA_HOME (set JAVA=%JAVA_HOME%\bin\) else (set JAVA=)
+set ARCHIVE_DIR=%USERPROFILE%\.patterncoder
+for %%F in ("%JAR%") do set STAMP=%%~zF_%%~tF
+set STAMP=%STAMP:/=%
+set STAMP=%STAMP:.=%
+set STAMP=%STAMP:-=%
+set STAMP=%STAMP::=%
+set STAMP=%STAMP: =%
+set ARCHIVE=%ARCHIVE_DIR%\patterncoder-%STAMP%.jsa
+
+if "%PATTERNCODER_CDS%"=="off" goto plain
+if exist "%ARCHIVE%" goto shared
+if not exist "%ARCHIVE_DIR%" mkdir "%ARCHIVE_DIR%"
+del /q "%ARCHIVE_DIR%\patterncoder*.jsa" >nul 2>&1
+"%JAVA%java" -XX:ArchiveClassesAtExit="%ARCHIVE%" -cp "%JAR%" org.patterncoder.StartupTraining >nul 2>&1
+if not exist "%ARCHIVE%" goto plain
+
+:shared
+start "" "%JAVA%javaw" -XX:SharedArchiveFile="%ARCHIVE%" -Xshare:auto -cp "%JAR%" org.patterncoder.StandAlone %*
+goto :eof
+
+:plain
+start "" "%JAVA%javaw" -cp "%JAR%" org.patterncoder.StandAlone %*
@@ -20,18 +20,28 @@
 package org.patterncoder;
 
 import bluej.extensions.BPackage;
+import bluej.extensions.BProject;
 import bluej.extensions.BlueJ;
 import bluej.extensions.Extension;
 import bluej.extensions.MenuGenerator;
+import bluej.extensions.PackageNotFoundException;
+import bluej.extensions.ProjectNotOpenException;
+import bluej.extensions.event.PackageEvent;
+import bluej.extensions.event.PackageListener;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
 import java.net.URL;
 import javax.swing.JMenuItem;
+import org.patterncoder.dataModel.EnumPatterns;
 import org.patterncoder.delegate.ErrorDialog;
 import org.patterncoder.delegate.PatternCoderFrame;
 import org.patterncoder.system.AbstractSystem;
 import org.patterncoder.system.BlueJSystem;
-import org.patterncoder.system.StandAloneSystem;
+import org.patterncoder.utils.Diagnostics;
+import org.patterncoder.utils.EdtWatchdog;
+import org.patterncoder.utils.Messages;
+import org.patterncoder.utils.TypeNameIndex;
 
 /**
  * Main class of the PatternCoder.<br> This version supports BlueJ and
@@ -48,21 +58,15 @@ public class PatternCoder extends Extension implements ActionListener
     /**
      * Language dependant name of the patternCoder: patternCoder
      */
-    public static final String NAME = java.util.ResourceBundle.getBundle(
-            "org/patterncoder/Bundle").getString("PATTERNCODER");
+    public static final String NAME = Messages.PATTERN_CODER.getString("PATTERNCODER");
     /**
      * Language dependant description of the patternCoder: patternCoder
      */
-    public static final String DESCRIPTION = java.util.ResourceBundle.getBundle("org/patterncoder/Bundle").getString("ABOUT");
+    public static final String DESCRIPTION = Messages.PATTERN_CODER.getString("ABOUT");
     /**
      * Language dependant URL of the patternCoder: patternCoder
      */
-    public static final String EXT_URL = java.util.ResourceBundle.getBundle(
-            "org/patterncoder/Bundle").getString("EXT_URL");
-    /**
-     * Reference to the runtime environment: BlueJ or stand-alone
-     */
-    private static AbstractSystem system;
+    public static final String EXT_URL = Messages.PATTERN_CODER.getString("EXT_URL");
     /**
      * Recent BlueJ package
      */
@@ -71,6 +75,10 @@ public class PatternCoder extends Extension implements ActionListener
      * Reference to the BlueJ instance
      */
     private BlueJ blueJ;
+    /**
+     * The BlueJ environment, created once at startup
+     */
+    private AbstractSystem system;
 
     /**
      * Returns the recent environment
@@ -79,22 +87,24 @@ public class PatternCoder extends Extension implements ActionListener
      */
     public static AbstractSystem getSystem()
     {
-        return system;
+        return AbstractSystem.getSystem();
     }
 
     /**
-     * Starts the patternCoder as stand-alone
+     * Starts the patternCoder as stand-alone; kept for existing start
+     * scripts, {@link StandAlone} starts without the BlueJ classes
      *
      * @param args
      */
     public static void main(String[] args)
     {
-        system = new StandAloneSystem();
-        new PatternCoderFrame();
+        StandAlone.main(args);
     }
 
     /**
-     * Method is called once when the extension is first initialized
+     * Method is called once when the extension is first initialized. The
+     * pattern library is loaded in the background, so the first frame finds
+     * it loaded already.
      *
      * @param pBlueJ The BlueJ proxy object
      */
@@ -104,7 +114,11 @@ public class PatternCoder extends Extension implements ActionListener
         try
         {
             this.blueJ = pBlueJ;
+            this.system = new BlueJSystem(pBlueJ);
+            EdtWatchdog.install();
             pBlueJ.setMenuGenerator(new PatternCoderMenuGenerator());
+            pBlueJ.addPackageListener(new ProjectCloseListener());
+            preloadLibrary();
         }
         catch (Throwable t)
         {
@@ -112,6 +126,36 @@ public class PatternCoder extends Extension implements ActionListener
         }
     }
 
+    /**
+     * Loads all categories on a background thread. Problems are not reported
+     * here; the frame loads the categories again and reports them then.
+     */
+    private void preloadLibrary()
+    {
+        Thread preload = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Diagnostics ignored = new Diagnostics();
+                for (EnumPatterns category : EnumPatterns.values())
+                {
+                    try
+                    {
+                        category.init(system, ignored);
+                    }
+                    catch (Exception ex)
+                    {
+                        // reported when the frame loads the category
+                    }
+                }
+            }
+        }, "PatternCoder preload");
+        preload.setDaemon(true);
+        preload.setPriority(Thread.MIN_PRIORITY);
+        preload.start();
+    }
+
     /**
      * Compatible or not.
      *
@@ -187,7 +231,8 @@ public class PatternCoder extends Extension implements ActionListener
 
     /**
      * Initializes a new instance of Pattern frame when menu option is selected.
-     * Called when the PatternExtension menu option is selected.
+     * Called when the PatternExtension menu option is selected. The frame
+     * finds the library loaded and reads only archives that have changed.
      *
      * @param event The ActionEvent which caused the method to be called.
      */
@@ -196,7 +241,6 @@ public class PatternCoder extends Extension implements ActionListener
     {
         try
         {
-            system = new BlueJSystem(blueJ);
             system.setPackage(this.recentPackage);
             new PatternCoderFrame();
 
@@ -207,6 +251,72 @@ public class PatternCoder extends Extension implements ActionListener
         }
     }
 
+    /**
+     * Stops the type name index of a project when the last open package of
+     * the project is closed, so the index does not watch a directory no
+     * longer in use.
+     */
+    class ProjectCloseListener implements PackageListener
+    {
+        @Override
+        public void packageOpened(PackageEvent event)
+        {
+            //
+        }
+
+        @Override
+        public void packageClosing(PackageEvent event)
+        {
+            BPackage closing = event.getPackage();
+            try
+            {
+                BProject project = closing.getProject();
+                if (!hasOtherOpenPackage(project, closing))
+                {
+                    TypeNameIndex.close(project.getDir());
+                }
+            }
+            catch (ProjectNotOpenException ex)
+            {
+                // the index is replaced when the next project is used
+            }
+        }
+
+        /**
+         * Checks if a package of the project other than the closing one is
+         * still shown in a window
+         */
+        private boolean hasOtherOpenPackage(BProject project, BPackage closing)
+                throws ProjectNotOpenException
+        {
+            File closingDir = null;
+            try
+            {
+                closingDir = closing.getDir();
+            }
+            catch (PackageNotFoundException ex)
+            {
+                // every open package counts as another one
+            }
+            for (BPackage other : project.getPackages())
+            {
+                try
+                {
+                    if (other.getFrame() != null
+                            && !other.getDir().equals(closingDir))
+                    {
+                        return true;
+                    }
+                }
+                catch (PackageNotFoundException ex)
+                {
+                    // the package has been removed meanwhile
+                }
+            }
+            return false;
+        }
+    }
+
     /**
      * PatternCoderMenuGenerator creates the menu option that is displayed in
      * the tools menu of the BlueJ environment.
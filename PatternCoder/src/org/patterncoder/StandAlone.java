@@ -0,0 +1,50 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder;
+
+import org.patterncoder.delegate.PatternCoderFrame;
+import org.patterncoder.system.StandAloneSystem;
+import org.patterncoder.utils.EdtWatchdog;
+
+/**
+ * Starts the patternCoder as stand-alone.<br>
+ * Unlike {@link PatternCoder}, which is a BlueJ extension, this class refers
+ * neither directly nor indirectly to the BlueJ API, so the stand-alone
+ * version runs without the BlueJ jar and loads only the classes of the
+ * stand-alone system, the data model and the frame. It is the main class of
+ * the stand-alone jar.
+ */
+public class StandAlone
+{
+    private StandAlone()
+    {
+    }
+
+    /**
+     * Starts the patternCoder as stand-alone
+     *
+     * @param args
+     */
+    public static void main(String[] args)
+    {
+        new StandAloneSystem();
+        EdtWatchdog.install();
+        new PatternCoderFrame();
+    }
+}
@@ -0,0 +1,162 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder;
+
+import java.awt.BorderLayout;
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import javax.swing.JEditorPane;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTabbedPane;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.JTree;
+import org.patterncoder.dataModel.EnumPatterns;
+import org.patterncoder.dataModel.Pattern;
+import org.patterncoder.dataModel.PatternComponent;
+import org.patterncoder.delegate.PanelImage;
+import org.patterncoder.delegate.PatternCoderFrame;
+import org.patterncoder.system.AbstractSystem;
+import org.patterncoder.system.StandAloneSystem;
+import org.patterncoder.utils.Diagnostics;
+import org.patterncoder.utils.Messages;
+import org.patterncoder.utils.Utils;
+
+/**
+ * Training run for the class data sharing archive of the stand-alone
+ * version.<br>
+ * The run loads the pattern library, renders the sources of every pattern
+ * and builds and paints the kinds of Swing components the frame consists of,
+ * so the archive written at exit contains the classes a start of the
+ * stand-alone version needs. It runs headless; apart from the trust store of
+ * validated descriptions it writes no file. The scripts patterncoder.sh and
+ * patterncoder.bat start it when the archive is missing or older than the
+ * jar.
+ */
+public class StartupTraining
+{
+    private StartupTraining()
+    {
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        System.setProperty("java.awt.headless", "true");
+        AbstractSystem system = new StandAloneSystem();
+        Diagnostics diagnostics = new Diagnostics();
+        Pattern sample = null;
+        for (EnumPatterns category : EnumPatterns.values())
+        {
+            try
+            {
+                category.init(system, diagnostics);
+            }
+            catch (IOException ex)
+            {
+                diagnostics.add(Diagnostics.Severity.ERROR, category.name(),
+                        "", ex.getMessage(), ex);
+            }
+            for (int i = 0; i < category.size(); i++)
+            {
+                Pattern pattern = category.get(i);
+                String[] classNames = Utils.getClassNames(pattern);
+                for (PatternComponent component : pattern.getAllComponents())
+                {
+                    Utils.render(pattern, component, classNames, "");
+                }
+                if (sample == null)
+                {
+                    sample = pattern;
+                }
+            }
+        }
+        EnumPatterns.getIndex().search(Messages.DELEGATE.getString("SEARCH"));
+        final Pattern SAMPLE = sample;
+        EventQueue.invokeAndWait(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                paintComponents(SAMPLE);
+            }
+        });
+        diagnostics.print(System.err);
+        // the archive is written when the virtual machine exits
+        System.exit(0);
+    }
+
+    /**
+     * Builds and paints components like those of the frame
+     *
+     * @param sample Pattern to show, may be null
+     */
+    private static void paintComponents(Pattern sample)
+    {
+        JTree tree = new JTree(PatternCoderFrame.patternTree);
+        for (int row = 0; row < tree.getRowCount(); row++)
+        {
+            tree.expandRow(row);
+        }
+        JEditorPane description = new JEditorPane();
+        description.setContentType("text/html");
+        description.setText("<body>" + (sample == null ? ""
+                : sample.DESC) + "</body>");
+        JTextArea preview = new JTextArea();
+        PanelImage image = new PanelImage();
+        if (sample != null)
+        {
+            PatternComponent component = sample.getFirstComponent();
+            preview.setText(Utils.render(sample, component,
+                    Utils.getClassNames(sample), ""));
+            image.setImage(sample.getImage());
+        }
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab(Messages.DELEGATE.getString("DESCRIPTION"),
+                new JScrollPane(description));
+        tabs.addTab(Messages.DELEGATE.getString("PREVIEW"),
+                new JScrollPane(preview));
+        JPanel left = new JPanel(new BorderLayout());
+        left.add(new JTextField(), BorderLayout.NORTH);
+        left.add(new JScrollPane(tree), BorderLayout.CENTER);
+        JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                new JSplitPane(JSplitPane.VERTICAL_SPLIT, left, image), tabs);
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(split, BorderLayout.CENTER);
+        content.add(new JProgressBar(), BorderLayout.SOUTH);
+        content.setSize(800, 600);
+        content.doLayout();
+        split.doLayout();
+        BufferedImage buffer = new BufferedImage(800, 600,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = buffer.createGraphics();
+        try
+        {
+            content.paint(graphics);
+        }
+        finally
+        {
+            graphics.dispose();
+        }
+    }
+}
@@ -20,20 +20,20 @@ package org.patterncoder.dataModel;
 
 import java.awt.Image;
 import java.io.*;
-import java.nio.ByteBuffer;
+import java.net.URL;
 import java.util.*;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
-import java.util.zip.ZipFile;
 import javax.imageio.ImageIO;
 import javax.swing.ComboBoxModel;
 import javax.swing.DefaultComboBoxModel;
-import javax.xml.parsers.ParserConfigurationException;
-import org.patterncoder.delegate.ErrorDialog;
 import org.patterncoder.system.AbstractSystem;
+import org.patterncoder.utils.Diagnostics;
+import org.patterncoder.utils.Messages;
+import org.patterncoder.utils.PatternArchive;
 import org.patterncoder.utils.XMLUtils;
 import org.w3c.dom.Document;
-import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
 /**
  *
@@ -41,26 +41,20 @@ import org.xml.sax.SAXException;
  */
 public enum EnumPatterns
 {
-    BASIC(java.util.ResourceBundle.getBundle(
-    "org/patterncoder/dataModel/Bundle").getString("NAME_BASIC"),
-    "basic", java.util.ResourceBundle.getBundle(
-    "org/patterncoder/dataModel/Bundle").getString("DESC_BASIC")), CREATIONAL(
-    java.util.ResourceBundle.getBundle(
-    "org/patterncoder/dataModel/Bundle").getString(
-    "NAME_CREATIONAL"), "creational", java.util.ResourceBundle.getBundle("org/patterncoder/dataModel/Bundle").getString(
-    "DESC_CREATIONAL")), BEHAVIOURAL(
-    java.util.ResourceBundle.getBundle(
-    "org/patterncoder/dataModel/Bundle").getString(
-    "NAME_BEHAVIORAL"), "behavioral", java.util.ResourceBundle.getBundle("org/patterncoder/dataModel/Bundle").getString(
-    "DESC_BEHAVIORAL")), STRUCTURAL(
-    java.util.ResourceBundle.getBundle(
-    "org/patterncoder/dataModel/Bundle").getString(
-    "NAME_STRUCTURAL"), "structural", java.util.ResourceBundle.getBundle("org/patterncoder/dataModel/Bundle").getString(
-    "DESC_STRUCTURAL")), OTHERS(
-    java.util.ResourceBundle.getBundle(
-    "org/patterncoder/dataModel/Bundle").getString(
-    "NAME_NON_GOF"), "other", java.util.ResourceBundle.getBundle("org/patterncoder/dataModel/Bundle").getString(
-    "DESC_NON_GOF"));
+    BASIC(Messages.DATA_MODEL.getString("NAME_BASIC"), "basic",
+    Messages.DATA_MODEL.getString("DESC_BASIC")),
+    CREATIONAL(Messages.DATA_MODEL.getString("NAME_CREATIONAL"), "creational",
+    Messages.DATA_MODEL.getString("DESC_CREATIONAL")),
+    BEHAVIOURAL(Messages.DATA_MODEL.getString("NAME_BEHAVIORAL"), "behavioral",
+    Messages.DATA_MODEL.getString("DESC_BEHAVIORAL")),
+    STRUCTURAL(Messages.DATA_MODEL.getString("NAME_STRUCTURAL"), "structural",
+    Messages.DATA_MODEL.getString("DESC_STRUCTURAL")),
+    OTHERS(Messages.DATA_MODEL.getString("NAME_NON_GOF"), "other",
+    Messages.DATA_MODEL.getString("DESC_NON_GOF"));
+    /**
+     * Search index over the patterns of all categories
+     */
+    private static final PatternIndex INDEX = new PatternIndex();
     /**
      * Description of the category
      */
@@ -77,6 +71,35 @@ public enum EnumPatterns
      * Gives a description of the category
      */
     private String EXPLAIN;
+    /**
+     * Patterns read by the last call of {@link #init}, by the location they
+     * were read from: a bundled library, a packed library or an archive
+     */
+    private Map<String, Loaded> loaded = new HashMap<String, Loaded>();
+
+    /**
+     * Patterns read from one location together with the time stamp and size
+     * of the file at that time
+     */
+    private static class Loaded
+    {
+        private final long LAST_MODIFIED;
+        private final long LENGTH;
+        private final List<Pattern> PATTERNS;
+
+        Loaded(long lastModified, long length, List<Pattern> patterns)
+        {
+            this.LAST_MODIFIED = lastModified;
+            this.LENGTH = length;
+            this.PATTERNS = patterns;
+        }
+
+        boolean isCurrent(File file)
+        {
+            return file.lastModified() == LAST_MODIFIED
+                    && file.length() == LENGTH;
+        }
+    }
 
     /**
      * Initializes the enums
@@ -102,6 +125,17 @@ public enum EnumPatterns
         return EXPLAIN;
     }
 
+    /**
+     * Returns the search index over the patterns of all categories; it is
+     * updated whenever a category is loaded
+     *
+     * @return The search index
+     */
+    public static PatternIndex getIndex()
+    {
+        return INDEX;
+    }
+
     /**
      * Creates a new list of patterns
      */
@@ -142,142 +176,327 @@ public enum EnumPatterns
         return patterns.get(index);
     }
 
-    public void init(AbstractSystem system) throws ZipException, IOException
+    /**
+     * Returns the name of the directory where the patternFiles of this
+     * category are stored
+     *
+     * @return Name of the directory, relative to the PatternFiles folder
+     */
+    public String getSubDir()
     {
+        return SUB_DIR;
+    }
+
+    /**
+     * Loads all patterns of this category. If the runtime environment bundles
+     * a packed library of the category or a packed library exists in the
+     * PatternFiles folder, only its index is read; otherwise every archive of
+     * the category directory is read. A packed library that is older than the
+     * category directory or one of its archives is ignored with a warning.
+     * Problems with single archives are recorded in the given collector and
+     * the archive is skipped; the remaining archives are loaded anyway.<br>
+     * The patterns stay loaded: a later call reads only the libraries and
+     * archives that have changed since, and resets the class names of the
+     * patterns it keeps. A bundled library is read only once.
+     *
+     * @param system The runtime environment
+     * @param diagnostics Collector for problems found while loading
+     * @throws ZipException
+     * @throws IOException
+     */
+    public synchronized void init(AbstractSystem system,
+            Diagnostics diagnostics)
+            throws ZipException, IOException
+    {
+        for (Pattern pattern : patterns)
+        {
+            INDEX.remove(pattern);
+        }
         this.resetPatterns();
-        Map<String, String> templateList = new HashMap<String, String>();
+        try
+        {
+            load(system, diagnostics);
+        }
+        finally
+        {
+            for (Pattern pattern : patterns)
+            {
+                INDEX.add(pattern);
+            }
+        }
+    }
+
+    /**
+     * Fills the list of patterns from a packed library or from the archives
+     *
+     * @param system The runtime environment
+     * @param diagnostics Collector for problems found while loading
+     * @throws IOException
+     */
+    private void load(AbstractSystem system, Diagnostics diagnostics)
+            throws IOException
+    {
+        Map<String, Loaded> previous = loaded;
+        loaded = new HashMap<String, Loaded>();
+        URL bundled = system.getBundledLibrary(SUB_DIR
+                + PatternLibrary.EXTENSION);
+        if (bundled != null)
+        {
+            try
+            {
+                Loaded library = previous.get(bundled.toString());
+                if (library == null)
+                {
+                    library = new Loaded(0L, 0L,
+                            PatternLibrary.read(bundled));
+                }
+                use(bundled.toString(), library);
+                Collections.sort(patterns);
+                return;
+            }
+            catch (IOException ex)
+            {
+                diagnostics.add(Diagnostics.Severity.WARNING,
+                        bundled.toString(), "", ex.getMessage(), ex);
+                this.resetPatterns();
+            }
+        }
         File coderDir = system.getCoderDir();
+        if (coderDir == null)
+        {
+            diagnostics.add(Diagnostics.Severity.ERROR, SUB_DIR, "",
+                    Messages.DATA_MODEL.format("PATTERN_FILES_MISSING",
+                    SUB_DIR), null);
+            return;
+        }
+        File library = new File(coderDir, SUB_DIR + PatternLibrary.EXTENSION);
         File patDir = new File(coderDir, SUB_DIR + AbstractSystem.SEPARATOR);
+        if (library.isFile() && isOutdated(library, patDir))
+        {
+            diagnostics.add(Diagnostics.Severity.WARNING, library.getName(),
+                    "", Messages.DATA_MODEL.format("LIBRARY_OUTDATED",
+                    SUB_DIR), null);
+        }
+        else if (library.isFile())
+        {
+            try
+            {
+                Loaded packed = previous.get(library.getPath());
+                if (packed == null || !packed.isCurrent(library))
+                {
+                    long lastModified = library.lastModified();
+                    long length = library.length();
+                    packed = new Loaded(lastModified, length,
+                            PatternLibrary.read(library));
+                }
+                use(library.getPath(), packed);
+                Collections.sort(patterns);
+                return;
+            }
+            catch (IOException ex)
+            {
+                diagnostics.add(Diagnostics.Severity.WARNING,
+                        library.getName(), "", ex.getMessage(), ex);
+                this.resetPatterns();
+            }
+        }
         if (!patDir.exists())
         {
             patDir.mkdir();
         }
-        File[] dateien = patDir.listFiles();
-        if (dateien != null && dateien.length > 0)
+        for (File temp : PatternArchive.list(patDir))
         {
-            for (File temp : dateien)
+            try
             {
-                Pattern pattern = null;
-                Image image = null;
-                ZipFile zipFile = new ZipFile(temp);
-                @SuppressWarnings("rawtypes")
-                Enumeration entries = zipFile.entries();
-
-                ByteBuffer buffer = ByteBuffer.allocate(1024);
-
-                while (entries.hasMoreElements())
+                Loaded archive = previous.get(temp.getPath());
+                if (archive == null || !archive.isCurrent(temp))
                 {
-                    buffer.clear();
-
-                    ZipEntry entry = (ZipEntry) entries.nextElement();
-                    if (!entry.isDirectory())
+                    long lastModified = temp.lastModified();
+                    long length = temp.length();
+                    Pattern pattern = assemble(temp.getName(),
+                            readArchive(temp), diagnostics);
+                    if (pattern == null)
                     {
-                        String name = entry.getName();
-                        String tempName = name.toUpperCase();
-                        InputStream inputStream = zipFile.getInputStream(entry);
+                        continue;
+                    }
+                    archive = new Loaded(lastModified, length,
+                            Collections.singletonList(pattern));
+                }
+                use(temp.getPath(), archive);
+            }
+            catch (IOException ex)
+            {
+                diagnostics.add(Diagnostics.Severity.ERROR, temp.getName(),
+                        "", ex.getMessage(), ex);
+            }
+        }
+        Collections.sort(patterns);
+    }
 
-                        // convert InputStream to String int number =
-                        // inputStream.available();
+    /**
+     * Returns true if archives have been added to, changed in or removed from
+     * the category directory after the packed library was written
+     *
+     * @param library The packed library
+     * @param patDir Directory of the archives
+     * @return true if the archives have to be read instead of the library
+     */
+    private static boolean isOutdated(File library, File patDir)
+    {
+        long written = library.lastModified();
+        if (patDir.lastModified() > written)
+        {
+            return true;
+        }
+        for (File archive : PatternArchive.list(patDir))
+        {
+            if (archive.lastModified() > written)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
 
-                        int read;
-                        while ((read = inputStream.read(buffer.array(),
-                                buffer.position(), buffer.remaining())) != -1)
-                        {
-                            buffer.position(buffer.position() + read);
-                            if (buffer.remaining() == 0)
-                            {
-                                ByteBuffer copy = ByteBuffer.allocate(buffer.capacity() * 2);
-                                buffer.flip();
-                                copy.put(buffer);
-                                buffer = copy;
-                            }
-                        }
+    /**
+     * Adds the patterns of a location to the category and keeps them for the
+     * next call of {@link #init}
+     *
+     * @param location Path or URL the patterns were read from
+     * @param patternsRead The patterns of the location
+     */
+    private void use(String location, Loaded patternsRead)
+    {
+        for (Pattern pattern : patternsRead.PATTERNS)
+        {
+            pattern.resetClassNames();
+            patterns.add(pattern);
+        }
+        loaded.put(location, patternsRead);
+    }
 
-                        if (tempName.endsWith(".XML"))
-                        {
-                            String content_XML = new String(buffer.array(), 0,
-                                    buffer.position());
-                            pattern = readXML(content_XML);
-                        }
-                        if (tempName.endsWith(".TMPL"))
-                        {
-                            String content = new String(buffer.array(), 0,
-                                    buffer.position());
-                            String[] split = name.split("/");
-                            name = split[split.length - 1];
-                            templateList.put(name, content);
-                        }
-                        if (tempName.endsWith(".BMP")
-                                || tempName.endsWith(".JPG")
-                                || tempName.endsWith(".GIF"))
-                        {
-                            try
-                            {
-                                ByteArrayInputStream tempStream = new ByteArrayInputStream(
-                                        buffer.array(), 0, buffer.position());
-                                image = ImageIO.read(tempStream);
-                            }
-                            catch (Throwable t)
-                            {
-                                new ErrorDialog(
-                                        java.util.ResourceBundle.getBundle(
-                                        "org/patterncoder/dataModel/Bundle").getString("IMAGE_NOT_CREATED")
-                                        + t.getMessage(), t).setVisible(true);
-                            }
-                        }
-                    }
-                }
-                pattern.setImage(image);
+    /**
+     * Reads all entries of an archive. The archive is closed before the method
+     * returns.
+     *
+     * @param file Archive to read
+     * @return Content of every entry by name, in the order of the archive
+     * @throws IOException If the archive cannot be opened or read
+     */
+    static Map<String, byte[]> readArchive(File file) throws IOException
+    {
+        Map<String, byte[]> result = new LinkedHashMap<String, byte[]>();
+        PatternArchive archive = PatternArchive.open(file);
+        try
+        {
+            for (ZipEntry entry : archive.getEntries())
+            {
+                result.put(entry.getName(), archive.read(entry));
+            }
+        }
+        finally
+        {
+            archive.close();
+        }
+        return result;
+    }
 
-                PatternComponent[] allComponents = pattern.getAllComponents();
-                for (PatternComponent tempComponent : allComponents)
+    /**
+     * Creates a pattern from the entries of an archive: the pattern
+     * description, the templates and the image.
+     *
+     * @param archive Name of the archive, used for diagnostics
+     * @param entries Content of the entries by name
+     * @param diagnostics Collector for problems found while reading
+     * @return The pattern or null if the archive contains no valid pattern
+     * description
+     */
+    static Pattern assemble(String archive, Map<String, byte[]> entries,
+            Diagnostics diagnostics)
+    {
+        Pattern pattern = null;
+        Image image = null;
+        Map<String, String> templateList = new HashMap<String, String>();
+        for (Map.Entry<String, byte[]> entry : entries.entrySet())
+        {
+            String name = entry.getKey();
+            String tempName = name.toUpperCase();
+            if (tempName.endsWith(".XML"))
+            {
+                String content_XML = new String(entry.getValue());
+                pattern = readXML(content_XML, diagnostics, archive, name);
+            }
+            if (tempName.endsWith(".TMPL"))
+            {
+                String content = new String(entry.getValue());
+                String[] split = name.split("/");
+                name = split[split.length - 1];
+                templateList.put(name, content);
+            }
+            if (tempName.endsWith(".BMP")
+                    || tempName.endsWith(".JPG")
+                    || tempName.endsWith(".GIF"))
+            {
+                try
+                {
+                    image = ImageIO.read(new ByteArrayInputStream(
+                            entry.getValue()));
+                }
+                catch (Throwable t)
                 {
-                    String[] tempTemplate = tempComponent.getTemplate().split(
-                            "/");
-                    String template = templateList.get(tempTemplate[tempTemplate.length - 1]);
-                    tempComponent.setTemplate(template);
+                    diagnostics.add(Diagnostics.Severity.ERROR, archive, name,
+                            Messages.DATA_MODEL.getString("IMAGE_NOT_CREATED")
+                            + t.getMessage(), t);
                 }
             }
         }
+        if (pattern == null)
+        {
+            diagnostics.add(Diagnostics.Severity.ERROR, archive, "",
+                    Messages.DATA_MODEL.getString("PATTERN_NOT_LOADED"), null);
+            return null;
+        }
+        pattern.setImage(image);
+
+        PatternComponent[] allComponents = pattern.getAllComponents();
+        for (PatternComponent tempComponent : allComponents)
+        {
+            String[] tempTemplate = tempComponent.getTemplate().split("/");
+            String template = templateList.get(tempTemplate[tempTemplate.length - 1]);
+            tempComponent.setTemplate(template);
+        }
+        return pattern;
     }
 
     /**
      * Reads the pattern description and validates it against the schema file.
-     * Adds then the new pattern to the list of patterns
      *
-     * @param is Description of pattern in XML-format
-     * @throws FileNotFoundException
-     * @throws IOException
-     * @throws SAXException
-     * @throws ParserConfigurationException
+     * @param content_XML Description of pattern in XML-format
+     * @param diagnostics Collector for problems found while reading
+     * @param archive Name of the archive containing the description
+     * @param entry Name of the entry containing the description
+     * @return The pattern or null if the description could not be read
      */
-    private Pattern readXML(String content_XML)
+    private static Pattern readXML(String content_XML,
+            Diagnostics diagnostics, String archive, String entry)
     {
         Pattern pattern = null;
         try
         {
             // Read and validate data
-            Document document = XMLUtils.readAndValidate(content_XML);
+            Document document = XMLUtils.readAndValidate(content_XML,
+                    diagnostics, archive, entry);
             // create pattern
             pattern = XMLUtils.createPattern(document);
-            patterns.add(pattern);
-            Collections.sort(patterns);
-        }
-        catch (SAXException ex)
-        {
-            new ErrorDialog(ex.getMessage(), ex).setVisible(true);
-        }
-        catch (ParserConfigurationException ex)
-        {
-            new ErrorDialog(ex.getMessage(), ex).setVisible(true);
         }
-        catch (IOException ex)
+        catch (SAXParseException ex)
         {
-            new ErrorDialog(ex.getMessage(), ex).setVisible(true);
+            // already recorded by the error handler of the parser
         }
         catch (Exception ex)
         {
-            new ErrorDialog(ex.getMessage(), ex).setVisible(true);
+            diagnostics.add(Diagnostics.Severity.ERROR, archive, entry,
+                    ex.getMessage(), ex);
         }
         return pattern;
     }
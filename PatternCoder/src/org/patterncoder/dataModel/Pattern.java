@@ -57,6 +57,32 @@ public class Pattern implements Comparable<Pattern>
 	 * Image of pattern
 	 */
 	private Image image;
+	/**
+	 * Loads components and image on first use; null if they are present
+	 */
+	private Loader loader;
+
+	/**
+	 * Loads the components and the image of a pattern whose name and
+	 * description are already known
+	 */
+	public interface Loader
+	{
+		/**
+		 * Loads the complete pattern
+		 * 
+		 * @return The complete pattern or null if it could not be loaded
+		 */
+		Pattern load();
+
+		/**
+		 * Returns the types and descriptions of the components without
+		 * loading the pattern
+		 * 
+		 * @return Words describing the components
+		 */
+		String getSearchText();
+	}
 
 	public Pattern(String name, String desc, String imageDir)
 	{
@@ -65,6 +91,42 @@ public class Pattern implements Comparable<Pattern>
 		this.IMAGE_DIR = imageDir;
 	}
 
+	/**
+	 * Creates a pattern whose components and image are loaded on first use
+	 * 
+	 * @param name
+	 *            Name of the pattern
+	 * @param desc
+	 *            Description of the pattern
+	 * @param imageDir
+	 *            Name of the image
+	 * @param loader
+	 *            Loads components and image
+	 */
+	public Pattern(String name, String desc, String imageDir, Loader loader)
+	{
+		this(name, desc, imageDir);
+		this.loader = loader;
+	}
+
+	/**
+	 * Loads components and image if this has not been done yet
+	 */
+	private synchronized void ensureLoaded()
+	{
+		if (loader != null)
+		{
+			Loader tempLoader = loader;
+			loader = null;
+			Pattern loaded = tempLoader.load();
+			if (loaded != null)
+			{
+				this.components = loaded.components;
+				this.image = loaded.image;
+			}
+		}
+	}
+
 	/**
 	 * Checks if the given component is the last component
 	 * 
@@ -74,6 +136,7 @@ public class Pattern implements Comparable<Pattern>
 	 */
 	public boolean isLastComponent(PatternComponent currentComponent)
 	{
+		ensureLoaded();
 		PatternComponent tempComponent = this.components
 				.get(components.size() - 1);
 		return tempComponent == currentComponent;
@@ -88,6 +151,7 @@ public class Pattern implements Comparable<Pattern>
 	 */
 	public PatternComponent getComponent(int index)
 	{
+		ensureLoaded();
 		return components.get(index);
 	}
 
@@ -101,6 +165,7 @@ public class Pattern implements Comparable<Pattern>
 	public PatternComponent getPreviousComponent(
 			PatternComponent currentComponent)
 	{
+		ensureLoaded();
 		int index = components.indexOf(currentComponent);
 		return components.get(index - 1);
 	}
@@ -114,6 +179,7 @@ public class Pattern implements Comparable<Pattern>
 	 */
 	public PatternComponent getNextComponent(PatternComponent tempComponent)
 	{
+		ensureLoaded();
 		int index = components.indexOf(tempComponent);
 		return components.get(index + 1);
 	}
@@ -125,6 +191,7 @@ public class Pattern implements Comparable<Pattern>
 	 */
 	public Image getImage()
 	{
+		ensureLoaded();
 		return image;
 	}
 
@@ -148,6 +215,7 @@ public class Pattern implements Comparable<Pattern>
 	 */
 	public int getStepNumber(PatternComponent component)
 	{
+		ensureLoaded();
 		return components.indexOf(component);
 	}
 
@@ -159,6 +227,7 @@ public class Pattern implements Comparable<Pattern>
 	 */
 	public int stepCount()
 	{
+		ensureLoaded();
 		return components.size();
 	}
 
@@ -169,6 +238,7 @@ public class Pattern implements Comparable<Pattern>
 	 */
 	public PatternComponent getFirstComponent()
 	{
+		ensureLoaded();
 		if (components.size() > 0)
 		{
 			return components.get(0);
@@ -185,11 +255,29 @@ public class Pattern implements Comparable<Pattern>
 	 */
 	public PatternComponent[] getAllComponents()
 	{
+		ensureLoaded();
 		PatternComponent[] result = new PatternComponent[components.size()];
 		components.toArray(result);
 		return result;
 	}
 
+	/**
+	 * Resets the class names of all components to their defaults. A pattern
+	 * not loaded yet is left as it is; its components get the default names
+	 * when it is loaded.
+	 */
+	public synchronized void resetClassNames()
+	{
+		if (loader != null)
+		{
+			return;
+		}
+		for (PatternComponent component : components)
+		{
+			component.resetClassName();
+		}
+	}
+
 	/**
 	 * Adds a component to the list of components
 	 * 
@@ -202,6 +290,32 @@ public class Pattern implements Comparable<Pattern>
 		Collections.sort(components);
 	}
 
+	/**
+	 * Returns the text a pattern can be found by: name, description and type
+	 * and description of every component
+	 * 
+	 * @return Searchable text of the pattern
+	 */
+	public String getSearchText()
+	{
+		StringBuilder result = new StringBuilder(NAME).append(' ').append(
+				DESC);
+		synchronized (this)
+		{
+			if (loader != null)
+			{
+				return result.append(' ').append(loader.getSearchText())
+						.toString();
+			}
+		}
+		for (PatternComponent component : getAllComponents())
+		{
+			result.append(' ').append(component.COMP_TYPE).append(' ')
+					.append(component.DESC);
+		}
+		return result.toString();
+	}
+
 	@Override
 	public int compareTo(Pattern otherPattern)
 	{
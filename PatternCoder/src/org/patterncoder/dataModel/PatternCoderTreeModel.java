@@ -19,13 +19,22 @@
 package org.patterncoder.dataModel;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.event.TreeModelEvent;
 import javax.swing.event.TreeModelListener;
 import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
 
 /**
- * The model for the JTree
+ * The model for the JTree.<br>
+ * Every category has a node holding its visible patterns and their indices, so
+ * children and indices are found in constant time. The patterns of a
+ * category are collected when the tree asks for them, i.e. when the category
+ * is expanded. Changes of the filter or of a category are reported to the
+ * tree as inserted, removed and changed nodes.
  *
  * @author Florian Siebler
  */
@@ -43,6 +52,261 @@ public class PatternCoderTreeModel implements TreeModel
      * Root of tree
      */
     public final String ROOT = "patternCoder";
+    /**
+     * Node of every category, by ordinal of the category
+     */
+    private final CategoryNode[] nodes = new CategoryNode[CAT.length];
+    /**
+     * Visible patterns while a filter is set; null if all patterns are visible
+     */
+    private Set<Pattern> filter = null;
+
+    /**
+     * Visible patterns of a category and their indices; the patterns are
+     * collected on first use
+     */
+    private class CategoryNode
+    {
+        private final EnumPatterns category;
+        private List<Pattern> children = null;
+        private Map<Pattern, Integer> indices = null;
+
+        CategoryNode(EnumPatterns category)
+        {
+            this.category = category;
+        }
+
+        boolean isLoaded()
+        {
+            return children != null;
+        }
+
+        List<Pattern> getChildren()
+        {
+            if (children == null)
+            {
+                setChildren(collect());
+            }
+            return children;
+        }
+
+        int getChildCount()
+        {
+            if (children == null && filter == null)
+            {
+                // no need to collect the patterns to count them
+                return category.size();
+            }
+            return getChildren().size();
+        }
+
+        int getIndex(Object child)
+        {
+            getChildren();
+            Integer index = indices.get(child);
+            return index == null ? -1 : index;
+        }
+
+        /**
+         * Returns the currently visible patterns of the category
+         */
+        List<Pattern> collect()
+        {
+            List<Pattern> result = new ArrayList<Pattern>();
+            for (int i = 0; i < category.size(); i++)
+            {
+                Pattern pattern = category.get(i);
+                if (filter == null || filter.contains(pattern))
+                {
+                    result.add(pattern);
+                }
+            }
+            return result;
+        }
+
+        void setChildren(List<Pattern> patterns)
+        {
+            children = patterns;
+            indices = new IdentityHashMap<Pattern, Integer>(patterns.size());
+            for (int i = 0; i < patterns.size(); i++)
+            {
+                indices.put(patterns.get(i), i);
+            }
+        }
+
+        void reset()
+        {
+            children = null;
+            indices = null;
+        }
+    }
+
+    public PatternCoderTreeModel()
+    {
+        for (EnumPatterns tempCat : CAT)
+        {
+            nodes[tempCat.ordinal()] = new CategoryNode(tempCat);
+        }
+    }
+
+    /**
+     * Shows only the given patterns; categories stay visible even if none of
+     * their patterns is shown. Only the patterns that appear or disappear are
+     * reported to the tree.
+     *
+     * @param visible Patterns to show or null to show all patterns
+     */
+    public void setFilter(Set<Pattern> visible)
+    {
+        filter = visible;
+        for (CategoryNode node : nodes)
+        {
+            if (node.isLoaded())
+            {
+                update(node, node.collect());
+            }
+            else
+            {
+                // the tree only knows whether the category is a leaf
+                fireTreeNodesChanged(new TreeModelEvent(this, new Object[]
+                        {
+                            ROOT
+                        }, new int[]
+                        {
+                            node.category.ordinal()
+                        }, new Object[]
+                        {
+                            node.category
+                        }));
+            }
+        }
+    }
+
+    /**
+     * Must be called after a category has been loaded again; only the
+     * patterns added to or removed from the category are reported, so
+     * patterns kept by the category keep their expansion and selection
+     *
+     * @param category Reloaded category
+     */
+    public void categoryReloaded(EnumPatterns category)
+    {
+        CategoryNode node = nodes[category.ordinal()];
+        if (node.isLoaded())
+        {
+            update(node, node.collect());
+        }
+        else
+        {
+            fireTreeNodesChanged(new TreeModelEvent(this, new Object[]
+                    {
+                        ROOT
+                    }, new int[]
+                    {
+                        category.ordinal()
+                    }, new Object[]
+                    {
+                        category
+                    }));
+        }
+    }
+
+    /**
+     * Replaces the visible patterns of a category and reports the removed
+     * and the inserted patterns. Both lists are in the order of the category.
+     *
+     * @param node Node of the category
+     * @param newChildren Patterns to show
+     */
+    private void update(CategoryNode node, List<Pattern> newChildren)
+    {
+        Object[] path = new Object[]
+        {
+            ROOT, node.category
+        };
+        Map<Pattern, Integer> newIndices = new IdentityHashMap<Pattern, Integer>();
+        for (Pattern pattern : newChildren)
+        {
+            newIndices.put(pattern, newIndices.size());
+        }
+
+        // removed patterns, reported with their old indices
+        List<Pattern> oldChildren = node.getChildren();
+        List<Pattern> kept = new ArrayList<Pattern>();
+        List<Integer> removedIndices = new ArrayList<Integer>();
+        List<Pattern> removed = new ArrayList<Pattern>();
+        for (int i = 0; i < oldChildren.size(); i++)
+        {
+            Pattern pattern = oldChildren.get(i);
+            if (newIndices.containsKey(pattern))
+            {
+                kept.add(pattern);
+            }
+            else
+            {
+                removedIndices.add(i);
+                removed.add(pattern);
+            }
+        }
+        if (!removed.isEmpty())
+        {
+            node.setChildren(kept);
+            fireTreeNodesRemoved(new TreeModelEvent(this, path,
+                    toArray(removedIndices), removed.toArray()));
+        }
+
+        // inserted patterns, reported with their new indices
+        List<Integer> insertedIndices = new ArrayList<Integer>();
+        List<Pattern> inserted = new ArrayList<Pattern>();
+        for (int i = 0; i < newChildren.size(); i++)
+        {
+            if (!node.indices.containsKey(newChildren.get(i)))
+            {
+                insertedIndices.add(i);
+                inserted.add(newChildren.get(i));
+            }
+        }
+        node.setChildren(newChildren);
+        if (!inserted.isEmpty())
+        {
+            fireTreeNodesInserted(new TreeModelEvent(this, path,
+                    toArray(insertedIndices), inserted.toArray()));
+        }
+    }
+
+    private static int[] toArray(List<Integer> list)
+    {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    private void fireTreeNodesChanged(TreeModelEvent event)
+    {
+        for (TreeModelListener tl : new ArrayList<TreeModelListener>(listener))
+        {
+            tl.treeNodesChanged(event);
+        }
+    }
+
+    private void fireTreeNodesInserted(TreeModelEvent event)
+    {
+        for (TreeModelListener tl : new ArrayList<TreeModelListener>(listener))
+        {
+            tl.treeNodesInserted(event);
+        }
+    }
+
+    private void fireTreeNodesRemoved(TreeModelEvent event)
+    {
+        for (TreeModelListener tl : new ArrayList<TreeModelListener>(listener))
+        {
+            tl.treeNodesRemoved(event);
+        }
+    }
 
     @Override
     public Object getRoot()
@@ -60,7 +324,7 @@ public class PatternCoderTreeModel implements TreeModel
         else
         {
             EnumPatterns tempCat = (EnumPatterns) o;
-            return tempCat.get(i);
+            return nodes[tempCat.ordinal()].getChildren().get(i);
         }
     }
 
@@ -69,16 +333,13 @@ public class PatternCoderTreeModel implements TreeModel
     {
         if (parent == ROOT)
         {
-            for (int i = 0; i < CAT.length; i++)
-            {
-                if (node == CAT[i])
-                {
-                    return i;
-                }
-            }
+            return node instanceof EnumPatterns ? ((EnumPatterns) node).ordinal() : -1;
         }
-        EnumPatterns tempNode = (EnumPatterns) node;
-        return tempNode.getIndexOf(node);
+        if (parent instanceof EnumPatterns)
+        {
+            return nodes[((EnumPatterns) parent).ordinal()].getIndex(node);
+        }
+        return -1;
     }
 
     @Override
@@ -94,11 +355,12 @@ public class PatternCoderTreeModel implements TreeModel
         {
             return CAT.length;
         }
-        else
+        else if (o instanceof EnumPatterns)
         {
             EnumPatterns tempCat = (EnumPatterns) o;
-            return tempCat.size();
+            return nodes[tempCat.ordinal()].getChildCount();
         }
+        return 0;
     }
 
     /**
@@ -111,22 +373,7 @@ public class PatternCoderTreeModel implements TreeModel
     @Override
     public boolean isLeaf(Object o)
     {
-        if (o.getClass() == Pattern.class)
-        {
-            return true;
-        }
-        else
-        {
-            if (o.getClass() == EnumPatterns.class)
-            {
-                EnumPatterns tempEnum = (EnumPatterns) o;
-                if (tempEnum.size() == 0)
-                {
-                    return true;
-                }
-            }
-            return false;
-        }
+        return o instanceof Pattern || getChildCount(o) == 0;
     }
 
     @Override
@@ -22,6 +22,7 @@ import java.awt.Image;
 import java.util.ArrayList;
 import java.util.List;
 import javax.swing.JOptionPane;
+import org.patterncoder.utils.Messages;
 import org.patterncoder.utils.Utils;
 
 /**
@@ -49,6 +50,10 @@ public class PatternComponent implements Comparable<PatternComponent>
      * Bezeichner
      */
     private String className;
+    /**
+     * The name of the component given by the pattern description
+     */
+    private final String DEFAULT_CLASS_NAME;
     /**
      * Description of pattern
      */
@@ -81,6 +86,7 @@ public class PatternComponent implements Comparable<PatternComponent>
         this.CLASS_ID = classID;
         this.COMP_TYPE = compType;
         this.className = defaultClassName;
+        this.DEFAULT_CLASS_NAME = defaultClassName;
         this.DESC = desc;
         this.template = template;
     }
@@ -127,6 +133,14 @@ public class PatternComponent implements Comparable<PatternComponent>
         this.template = template;
     }
 
+    /**
+     * Restores the name given by the pattern description
+     */
+    public void resetClassName()
+    {
+        this.className = DEFAULT_CLASS_NAME;
+    }
+
     /**
      * Return the className of the component
      *
@@ -151,9 +165,8 @@ public class PatternComponent implements Comparable<PatternComponent>
             {
                 className = JOptionPane.showInputDialog(
                         null,
-                        java.util.ResourceBundle.getBundle(
-                        "org/patterncoder/dataModel/Bundle").getString(
-                        "VALID_CLASS_NAME"), java.util.ResourceBundle.getBundle("org/patterncoder/dataModel/Bundle").getString("VALIDNAME"));
+                        Messages.DATA_MODEL.getString("VALID_CLASS_NAME"),
+                        Messages.DATA_MODEL.getString("VALIDNAME"));
             }
             while (!Utils.verifyName(className));
         }
@@ -210,10 +223,8 @@ public class PatternComponent implements Comparable<PatternComponent>
         }
         else
         {
-            throw new Exception(java.util.ResourceBundle.getBundle(
-                    "org/patterncoder/dataModel/Bundle").getString(
-                    "WIZARD_STEP_INVALID")
-                    + this.COMP_TYPE);
+            throw new Exception(Messages.DATA_MODEL.getString(
+                    "WIZARD_STEP_INVALID") + this.COMP_TYPE);
         }
     }
 }
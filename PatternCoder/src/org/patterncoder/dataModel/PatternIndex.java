@@ -0,0 +1,170 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.dataModel;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over the names and descriptions of the patterns and their
+ * components.<br>
+ * Every word of the search text of a pattern is stored in lower case in a
+ * sorted map, so a query word matches all words starting with it. A query with
+ * several words returns the patterns matching every word.
+ */
+public class PatternIndex
+{
+    /**
+     * Patterns by word
+     */
+    private final TreeMap<String, Set<Pattern>> postings = new TreeMap<String, Set<Pattern>>();
+    /**
+     * Words by pattern, needed to remove a pattern
+     */
+    private final Map<Pattern, String[]> words = new IdentityHashMap<Pattern, String[]>();
+
+    /**
+     * Adds a pattern to the index; a pattern that is already indexed is
+     * indexed again
+     *
+     * @param pattern Pattern to add
+     */
+    public synchronized void add(Pattern pattern)
+    {
+        remove(pattern);
+        String[] patternWords = tokenize(pattern.getSearchText());
+        words.put(pattern, patternWords);
+        for (String word : patternWords)
+        {
+            Set<Pattern> patterns = postings.get(word);
+            if (patterns == null)
+            {
+                patterns = new HashSet<Pattern>();
+                postings.put(word, patterns);
+            }
+            patterns.add(pattern);
+        }
+    }
+
+    /**
+     * Removes a pattern from the index
+     *
+     * @param pattern Pattern to remove
+     */
+    public synchronized void remove(Pattern pattern)
+    {
+        String[] patternWords = words.remove(pattern);
+        if (patternWords == null)
+        {
+            return;
+        }
+        for (String word : patternWords)
+        {
+            Set<Pattern> patterns = postings.get(word);
+            patterns.remove(pattern);
+            if (patterns.isEmpty())
+            {
+                postings.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Searches all patterns matching a query. Each word of the query must be
+     * the beginning of a word of the pattern.
+     *
+     * @param query Words to search, separated by blanks or punctuation
+     * @return Matching patterns; all indexed patterns if the query contains no
+     * word
+     */
+    public synchronized Set<Pattern> search(String query)
+    {
+        String[] queryWords = tokenize(query);
+        if (queryWords.length == 0)
+        {
+            return new HashSet<Pattern>(words.keySet());
+        }
+        Set<Pattern> result = null;
+        for (String word : queryWords)
+        {
+            Set<Pattern> matches = new HashSet<Pattern>();
+            SortedMap<String, Set<Pattern>> prefixed = postings.subMap(word,
+                    word + Character.MAX_VALUE);
+            for (Set<Pattern> patterns : prefixed.values())
+            {
+                if (result == null)
+                {
+                    matches.addAll(patterns);
+                }
+                else
+                {
+                    // only patterns matching the previous words are of interest
+                    for (Pattern pattern : patterns)
+                    {
+                        if (result.contains(pattern))
+                        {
+                            matches.add(pattern);
+                        }
+                    }
+                }
+            }
+            result = matches;
+            if (result.isEmpty())
+            {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits a text into distinct lower case words
+     *
+     * @param text Text to split
+     * @return Words of the text
+     */
+    private static String[] tokenize(String text)
+    {
+        if (text == null)
+        {
+            return new String[0];
+        }
+        Set<String> result = new HashSet<String>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++)
+        {
+            boolean letter = i < text.length()
+                    && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0)
+            {
+                start = i;
+            }
+            else if (!letter && start >= 0)
+            {
+                result.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return result.toArray(new String[result.size()]);
+    }
+}
@@ -0,0 +1,328 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.dataModel;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.patterncoder.utils.Diagnostics;
+
+/**
+ * Reads and writes packed pattern libraries: all patterns of one category in
+ * a single file.<br>
+ * The file starts with an index containing name, description and image name
+ * of every pattern and the position of its entries; the entries follow the
+ * index. The file is memory-mapped, so the patterns can be listed from the
+ * index alone; the entries of a pattern are read when the pattern is used for
+ * the first time.<br>
+ * Layout (big endian): magic, version, number of patterns, start of the
+ * entries; per pattern: name, description, image name, types and
+ * descriptions of the components, number of entries;
+ * per entry: name, offset relative to the start of the entries, length.
+ * Strings are stored as length and UTF-8 bytes.
+ */
+public class PatternLibrary
+{
+    /**
+     * Filename extension of packed libraries
+     */
+    public static final String EXTENSION = ".pcl";
+    private static final int MAGIC = 0x50434C42;
+    private static final int VERSION = 2;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    /**
+     * Problems found while patterns are loaded on first use; shared by all
+     * patterns and guarded by itself
+     */
+    private static final Diagnostics LOAD_PROBLEMS = new Diagnostics();
+
+    private PatternLibrary()
+    {
+    }
+
+    /**
+     * Shows the problems found while patterns were loaded on first use since
+     * the last call, all in one dialog
+     */
+    public static void reportLoadProblems()
+    {
+        synchronized (LOAD_PROBLEMS)
+        {
+            LOAD_PROBLEMS.report();
+            LOAD_PROBLEMS.clear();
+        }
+    }
+
+    /**
+     * Reads the index of a packed library. The entries of each pattern are
+     * not read until the pattern is used.
+     *
+     * @param file The packed library
+     * @return All patterns of the library in the order of the index
+     * @throws IOException If the file cannot be mapped or is no packed library
+     */
+    public static List<Pattern> read(File file) throws IOException
+    {
+        ByteBuffer buffer;
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = randomAccessFile.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+        finally
+        {
+            // the mapping stays valid after the file has been closed
+            randomAccessFile.close();
+        }
+        return read(buffer, file.getName());
+    }
+
+    /**
+     * Reads the index of a packed library from a resource, e.g. a library
+     * bundled in the jar. Libraries in the file system are memory-mapped,
+     * other resources are read into memory at once.
+     *
+     * @param resource The packed library
+     * @return All patterns of the library in the order of the index
+     * @throws IOException If the resource cannot be read or is no packed
+     * library
+     */
+    public static List<Pattern> read(URL resource) throws IOException
+    {
+        if ("file".equals(resource.getProtocol()))
+        {
+            try
+            {
+                return read(new File(resource.toURI()));
+            }
+            catch (URISyntaxException ex)
+            {
+                // read it as stream
+            }
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        InputStream inputStream = resource.openStream();
+        try
+        {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1)
+            {
+                content.write(buffer, 0, read);
+            }
+        }
+        finally
+        {
+            inputStream.close();
+        }
+        String path = resource.getPath();
+        return read(ByteBuffer.wrap(content.toByteArray()),
+                path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    private static List<Pattern> read(ByteBuffer buffer, String source)
+            throws IOException
+    {
+        try
+        {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            {
+                throw new IOException("No packed pattern library: " + source);
+            }
+            int patternCount = buffer.getInt();
+            int dataStart = buffer.getInt();
+            List<Pattern> result = new ArrayList<Pattern>(patternCount);
+            for (int i = 0; i < patternCount; i++)
+            {
+                String name = readString(buffer);
+                String desc = readString(buffer);
+                String imageDir = readString(buffer);
+                String searchText = readString(buffer);
+                int entryCount = buffer.getInt();
+                String[] names = new String[entryCount];
+                int[] offsets = new int[entryCount];
+                int[] lengths = new int[entryCount];
+                for (int e = 0; e < entryCount; e++)
+                {
+                    names[e] = readString(buffer);
+                    offsets[e] = dataStart + buffer.getInt();
+                    lengths[e] = buffer.getInt();
+                }
+                result.add(new Pattern(name, desc, imageDir, new EntryLoader(
+                        source + "!" + name, searchText, buffer, names,
+                        offsets, lengths)));
+            }
+            return result;
+        }
+        catch (RuntimeException ex)
+        {
+            // BufferUnderflowException, IllegalArgumentException
+            throw new IOException("Corrupt packed pattern library: " + source,
+                    ex);
+        }
+    }
+
+    /**
+     * Writes a packed library
+     *
+     * @param file Target file
+     * @param patterns Header data of every pattern
+     * @param entries Entries of every pattern, in the same order as patterns
+     * @throws IOException
+     */
+    public static void write(File file, List<Pattern> patterns,
+            List<Map<String, byte[]>> entries) throws IOException
+    {
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream index = new DataOutputStream(indexBytes);
+        int offset = 0;
+        for (int i = 0; i < patterns.size(); i++)
+        {
+            Pattern pattern = patterns.get(i);
+            writeString(index, pattern.NAME);
+            writeString(index, pattern.DESC);
+            writeString(index, pattern.IMAGE_DIR);
+            StringBuilder searchText = new StringBuilder();
+            for (PatternComponent component : pattern.getAllComponents())
+            {
+                searchText.append(component.COMP_TYPE).append(' ').append(
+                        component.DESC).append(' ');
+            }
+            writeString(index, searchText.toString());
+            index.writeInt(entries.get(i).size());
+            for (Map.Entry<String, byte[]> entry : entries.get(i).entrySet())
+            {
+                writeString(index, entry.getKey());
+                index.writeInt(offset);
+                index.writeInt(entry.getValue().length);
+                offset += entry.getValue().length;
+            }
+        }
+        index.flush();
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file)));
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(patterns.size());
+            out.writeInt(16 + indexBytes.size());
+            indexBytes.writeTo(out);
+            for (Map<String, byte[]> patternEntries : entries)
+            {
+                for (byte[] content : patternEntries.values())
+                {
+                    out.write(content);
+                }
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private static String readString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static void writeString(DataOutputStream out, String value)
+            throws IOException
+    {
+        byte[] bytes = value.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads the entries of one pattern from the mapped library and assembles
+     * the pattern. Problems are collected in {@link #LOAD_PROBLEMS}; the
+     * trust store is saved when the frame is closed.
+     */
+    private static class EntryLoader implements Pattern.Loader
+    {
+        private final String source;
+        private final String searchText;
+        private final ByteBuffer buffer;
+        private final String[] names;
+        private final int[] offsets;
+        private final int[] lengths;
+
+        EntryLoader(String source, String searchText, ByteBuffer buffer,
+                String[] names, int[] offsets, int[] lengths)
+        {
+            this.source = source;
+            this.searchText = searchText;
+            this.buffer = buffer;
+            this.names = names;
+            this.offsets = offsets;
+            this.lengths = lengths;
+        }
+
+        @Override
+        public String getSearchText()
+        {
+            return searchText;
+        }
+
+        @Override
+        public Pattern load()
+        {
+            Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+            ByteBuffer view = buffer.duplicate();
+            try
+            {
+                for (int i = 0; i < names.length; i++)
+                {
+                    byte[] content = new byte[lengths[i]];
+                    view.position(offsets[i]);
+                    view.get(content);
+                    entries.put(names[i], content);
+                }
+            }
+            catch (RuntimeException ex)
+            {
+                LOAD_PROBLEMS.add(Diagnostics.Severity.ERROR, source, "",
+                        "Corrupt packed pattern library", ex);
+                return null;
+            }
+            return EnumPatterns.assemble(source, entries, LOAD_PROBLEMS);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.dataModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.patterncoder.utils.Diagnostics;
+import org.patterncoder.utils.PatternArchive;
+import org.patterncoder.utils.TrustStore;
+
+/**
+ * Builds the packed libraries of all categories from the archives of a
+ * PatternFiles folder.<br>
+ * Usage: java org.patterncoder.dataModel.PatternLibraryPacker
+ * &lt;PatternFiles folder&gt; [target folder]<br>
+ * For every category directory a file &lt;directory&gt;.pcl is written to
+ * the target folder, by default next to the directory. To bundle the
+ * libraries with the stand-alone version, run the packer by hand before the
+ * jar is built, with the classes folder plus
+ * {@link org.patterncoder.system.StandAloneSystem#LIBRARY_RESOURCE_DIR} as
+ * target. Archives that cannot be read are reported on System.err and left
+ * out.
+ */
+public class PatternLibraryPacker
+{
+    private PatternLibraryPacker()
+    {
+    }
+
+    /**
+     * Packs the archives of all categories
+     *
+     * @param coderDir The PatternFiles folder
+     * @param targetDir Folder the packed libraries are written to
+     * @param diagnostics Collector for archives that cannot be read
+     * @throws IOException If a packed library cannot be written
+     */
+    public static void pack(File coderDir, File targetDir,
+            Diagnostics diagnostics) throws IOException
+    {
+        if (!targetDir.isDirectory() && !targetDir.mkdirs())
+        {
+            throw new IOException("Cannot create " + targetDir);
+        }
+        for (EnumPatterns category : EnumPatterns.values())
+        {
+            File patDir = new File(coderDir, category.getSubDir());
+            if (!patDir.isDirectory())
+            {
+                continue;
+            }
+            List<Pattern> patterns = new ArrayList<Pattern>();
+            List<Map<String, byte[]>> entries = new ArrayList<Map<String, byte[]>>();
+            for (File archive : PatternArchive.list(patDir))
+            {
+                try
+                {
+                    Map<String, byte[]> content = EnumPatterns.readArchive(archive);
+                    Pattern pattern = EnumPatterns.assemble(archive.getName(),
+                            content, diagnostics);
+                    if (pattern != null)
+                    {
+                        patterns.add(pattern);
+                        entries.add(content);
+                    }
+                }
+                catch (IOException ex)
+                {
+                    diagnostics.add(Diagnostics.Severity.ERROR,
+                            archive.getName(), "", ex.getMessage(), ex);
+                }
+            }
+            PatternLibrary.write(new File(targetDir, category.getSubDir()
+                    + PatternLibrary.EXTENSION), patterns, entries);
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1 || args.length > 2)
+        {
+            System.err.println("Usage: java "
+                    + PatternLibraryPacker.class.getName()
+                    + " <PatternFiles folder> [target folder]");
+            System.exit(1);
+        }
+        Diagnostics diagnostics = new Diagnostics();
+        File coderDir = new File(args[0]);
+        pack(coderDir, args.length == 2 ? new File(args[1]) : coderDir,
+                diagnostics);
+        TrustStore.getInstance().save();
+        diagnostics.print(System.err);
+    }
+}
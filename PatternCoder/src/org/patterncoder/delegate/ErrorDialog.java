@@ -16,6 +16,8 @@ package org.patterncoder.delegate;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import org.patterncoder.utils.Diagnostics.Problem;
+import org.patterncoder.utils.Messages;
 
 /**
  * Component that show the message and the stacktrace of an exception
@@ -66,6 +68,42 @@ public class ErrorDialog extends javax.swing.JDialog
         }
     }
 
+    /**
+     * Initialize the components with a summary of several problems; each
+     * problem is shown in one line, the stacktraces of all problems are
+     * shown in the stacktrace tab
+     *
+     * @param problems Problems to display
+     */
+    public ErrorDialog(Problem[] problems)
+    {
+        this(Messages.DELEGATE.format("LOAD_PROBLEMS", problems.length));
+        StringBuilder messages = new StringBuilder(txtMessage.getText());
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter printWriter = new PrintWriter(stringWriter);
+        for (Problem problem : problems)
+        {
+            messages.append('\n').append(problem);
+            if (problem.CAUSE != null)
+            {
+                printWriter.println(problem.ARCHIVE + "!" + problem.ENTRY);
+                problem.CAUSE.printStackTrace(printWriter);
+            }
+        }
+        txtMessage.setText(messages.toString());
+        txtMessage.setCaretPosition(0);
+        String trace = stringWriter.toString();
+        if (trace.isEmpty())
+        {
+            tbbError.remove(scrStacktrace);
+        }
+        else
+        {
+            txtStacktrace.setText(trace);
+            txtStacktrace.setCaretPosition(0);
+        }
+    }
+
     private void initComponents()
     {
         tbbError = new javax.swing.JTabbedPane();
@@ -83,7 +121,7 @@ public class ErrorDialog extends javax.swing.JDialog
         txtMessage.setWrapStyleWord(true);
         scrMessage.setViewportView(txtMessage);
 
-        java.util.ResourceBundle bundle = java.util.ResourceBundle.getBundle("org/patterncoder/delegate/Bundle"); // NOI18N
+        java.util.ResourceBundle bundle = Messages.DELEGATE.getBundle(); // NOI18N
         tbbError.addTab(bundle.getString("MESSAGE"), scrMessage); // NOI18N
 
         txtStacktrace.setColumns(20);
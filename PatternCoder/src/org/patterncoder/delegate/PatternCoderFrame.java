@@ -22,15 +22,22 @@ import java.awt.Image;
 import java.awt.Toolkit;
 import java.io.IOException;
 import java.net.URL;
-import java.util.zip.ZipException;
 import javax.swing.JFrame;
+import javax.swing.JOptionPane;
 import javax.swing.border.EtchedBorder;
-import org.patterncoder.PatternCoder;
 import org.patterncoder.dataModel.EnumPatterns;
 import org.patterncoder.dataModel.Pattern;
 import org.patterncoder.dataModel.PatternCoderTreeModel;
+import org.patterncoder.dataModel.PatternLibrary;
 import org.patterncoder.dataModel.PatternComponent;
 import org.patterncoder.system.AbstractSystem;
+import org.patterncoder.utils.Diagnostics;
+import org.patterncoder.utils.EdtWatchdog;
+import org.patterncoder.utils.Messages;
+import org.patterncoder.utils.NameValidator;
+import org.patterncoder.utils.PatternArchive;
+import org.patterncoder.utils.TrustStore;
+import org.patterncoder.utils.TypeNameIndex;
 import org.patterncoder.utils.Utils;
 
 /**
@@ -42,22 +49,16 @@ public class PatternCoderFrame extends JFrame
 {
     private AbstractSystem SYSTEM;
     public static final PatternCoderTreeModel patternTree = new PatternCoderTreeModel();
-    private final String BTN_NEXT_FINISH = java.util.ResourceBundle.getBundle(
-            "org/patterncoder/delegate/Bundle").getString("FINISH");
-    private final String BTN_NEXT = java.util.ResourceBundle.getBundle(
-            "org/patterncoder/delegate/Bundle").getString("NEXT");
-    private final String STEP_DESC_DEFAULT = java.text.MessageFormat.format(
-            java.util.ResourceBundle.getBundle(
-            "org/patterncoder/delegate/Bundle").getString(
-            "SELECT_PATTERN"), new Object[]
-            {
-                BTN_NEXT
-            });
-    private final String ABOUT = java.util.ResourceBundle.getBundle(
-            "org/patterncoder/delegate/Bundle").getString("ABOUT PATTERNCODER");
-    private final String SELECT_PATTERN = java.util.ResourceBundle.getBundle(
-            "org/patterncoder/delegate/Bundle").getString(
+    private final String BTN_NEXT_FINISH = Messages.DELEGATE.getString("FINISH");
+    private final String BTN_NEXT = Messages.DELEGATE.getString("NEXT");
+    private final String STEP_DESC_DEFAULT = Messages.DELEGATE.format(
+            "SELECT_PATTERN", BTN_NEXT);
+    private final String ABOUT = Messages.DELEGATE.getString("ABOUT PATTERNCODER");
+    private final String SELECT_PATTERN = Messages.DELEGATE.getString(
             "SELECT DESIGN PATTERN");
+    private final String OVERVIEW = Messages.DELEGATE.getString("Overview");
+    private final String FURTHER_INFORMATION = Messages.DELEGATE.getString(
+            "FURTHERINFORMATION");
     /**
      * Current selected pattern
      */
@@ -79,34 +80,48 @@ public class PatternCoderFrame extends JFrame
      * Describes what patternCoder is
      */
     private final String WHAT_IS_PATTERNCODER = INFORMATION_PREFIX
-            + java.text.MessageFormat.format(
-            java.util.ResourceBundle.getBundle(
-            "org/patterncoder/delegate/Bundle").getString(
-            "WHAT_IS_PATTERNCODER"), new Object[]
-            {
-                INFORMATION_POSTFIX
-            });
+            + Messages.DELEGATE.format("WHAT_IS_PATTERNCODER",
+            INFORMATION_POSTFIX);
 
     public PatternCoderFrame()
     {
-        this.SYSTEM = PatternCoder.getSystem();
+        this.SYSTEM = AbstractSystem.getSystem();
         initComponents();
+        initSearch();
+        initPreview();
+        initWatchdog();
+        initGeneration();
+        java.io.File targetDir = SYSTEM.getTargetDir();
+        if (targetDir != null)
+        {
+            // builds the index while the library is loaded
+            TypeNameIndex.forRoot(targetDir);
+        }
+        Diagnostics diagnostics = new Diagnostics();
         EnumPatterns[] enums = EnumPatterns.values();
         for (EnumPatterns tempEnum : enums)
         {
             try
             {
-                tempEnum.init(SYSTEM);
-            }
-            catch (ZipException e)
-            {
-                new ErrorDialog(e.getMessage(), e).setVisible(true);
+                tempEnum.init(SYSTEM, diagnostics);
+                patternTree.categoryReloaded(tempEnum);
             }
             catch (IOException e)
             {
-                new ErrorDialog(e.getMessage(), e).setVisible(true);
+                diagnostics.add(Diagnostics.Severity.ERROR,
+                        tempEnum.name(), "", e.getMessage(), e);
             }
         }
+        PatternArchive.reportLeaks(diagnostics);
+        try
+        {
+            TrustStore.getInstance().save();
+        }
+        catch (IOException e)
+        {
+            diagnostics.add(Diagnostics.Severity.WARNING, "", "",
+                    e.getMessage(), e);
+        }
         txtDescription.setText(WHAT_IS_PATTERNCODER);
         setLocationRelativeTo(null);
         lblStepDesc.setText(STEP_DESC_DEFAULT);
@@ -119,6 +134,288 @@ public class PatternCoderFrame extends JFrame
         int strategy = SYSTEM.getCloseStrategy();
         setDefaultCloseOperation(strategy);
         this.setVisible(true);
+        diagnostics.report();
+    }
+
+    /**
+     * Puts a search field above the pattern tree. While the user types, the
+     * tree shows only the patterns matching the text.
+     */
+    private void initSearch()
+    {
+        edtSearch = new javax.swing.JTextField();
+        edtSearch.setToolTipText(Messages.DELEGATE.getString("SEARCH"));
+        edtSearch.getDocument().addDocumentListener(
+                new javax.swing.event.DocumentListener()
+                {
+                    @Override
+                    public void insertUpdate(javax.swing.event.DocumentEvent evt)
+                    {
+                        edtSearchChanged();
+                    }
+
+                    @Override
+                    public void removeUpdate(javax.swing.event.DocumentEvent evt)
+                    {
+                        edtSearchChanged();
+                    }
+
+                    @Override
+                    public void changedUpdate(javax.swing.event.DocumentEvent evt)
+                    {
+                        edtSearchChanged();
+                    }
+                });
+        javax.swing.JPanel pnlTree = new javax.swing.JPanel(
+                new java.awt.BorderLayout());
+        pnlTree.add(edtSearch, java.awt.BorderLayout.NORTH);
+        pnlTree.add(scrPatternTree, java.awt.BorderLayout.CENTER);
+        jSplitPane1.setTopComponent(pnlTree);
+    }
+
+    /**
+     * Puts the description into a tabbed pane together with a preview of the
+     * source generated for the current component
+     */
+    private void initPreview()
+    {
+        java.util.ResourceBundle bundle = Messages.DELEGATE.getBundle();
+        txtPreview = new javax.swing.JTextArea();
+        txtPreview.setEditable(false);
+        txtPreview.setFont(new java.awt.Font(java.awt.Font.MONOSPACED,
+                java.awt.Font.PLAIN, 12));
+        preview = new SourcePreview(txtPreview);
+        tabDescription = new javax.swing.JTabbedPane();
+        ((javax.swing.GroupLayout) pnlPattern.getLayout()).replace(jScrollPane3,
+                tabDescription);
+        tabDescription.addTab(bundle.getString("DESCRIPTION"), jScrollPane3);
+        tabDescription.addTab(bundle.getString("PREVIEW"),
+                new javax.swing.JScrollPane(txtPreview));
+        edtName.getDocument().addDocumentListener(
+                new javax.swing.event.DocumentListener()
+                {
+                    @Override
+                    public void insertUpdate(javax.swing.event.DocumentEvent evt)
+                    {
+                        edtNameChanged();
+                    }
+
+                    @Override
+                    public void removeUpdate(javax.swing.event.DocumentEvent evt)
+                    {
+                        edtNameChanged();
+                    }
+
+                    @Override
+                    public void changedUpdate(javax.swing.event.DocumentEvent evt)
+                    {
+                        edtNameChanged();
+                    }
+                });
+    }
+
+    /**
+     * Lets Ctrl+Shift+F12 print the statistics of the event thread watchdog,
+     * if it is installed
+     */
+    private void initWatchdog()
+    {
+        final EdtWatchdog watchdog = EdtWatchdog.getInstance();
+        if (watchdog == null)
+        {
+            return;
+        }
+        final String DUMP = "dumpWatchdog";
+        getRootPane().getInputMap(
+                javax.swing.JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+                javax.swing.KeyStroke.getKeyStroke(
+                java.awt.event.KeyEvent.VK_F12,
+                java.awt.event.InputEvent.CTRL_DOWN_MASK
+                | java.awt.event.InputEvent.SHIFT_DOWN_MASK), DUMP);
+        getRootPane().getActionMap().put(DUMP, new javax.swing.AbstractAction()
+        {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent evt)
+            {
+                watchdog.dump(System.err);
+            }
+        });
+    }
+
+    /**
+     * Puts a status line and a progress bar for the generation of the sources
+     * left of the buttons
+     */
+    private void initGeneration()
+    {
+        lblStatus = new javax.swing.JLabel();
+        lblStatus.setForeground(java.awt.Color.RED);
+        prgGeneration = new javax.swing.JProgressBar(0, 100);
+        prgGeneration.setStringPainted(true);
+        prgGeneration.setVisible(false);
+        javax.swing.JPanel pnlProgress = new javax.swing.JPanel(
+                new java.awt.GridLayout(2, 1));
+        pnlProgress.setBorder(javax.swing.BorderFactory.createEmptyBorder(0,
+                12, 0, 0));
+        pnlProgress.add(lblStatus);
+        pnlProgress.add(prgGeneration);
+        javax.swing.JPanel pnlStatus = new javax.swing.JPanel(
+                new java.awt.BorderLayout());
+        ((javax.swing.GroupLayout) getContentPane().getLayout()).replace(
+                pnlFooter, pnlStatus);
+        pnlStatus.add(pnlProgress, java.awt.BorderLayout.CENTER);
+        pnlStatus.add(pnlFooter, java.awt.BorderLayout.EAST);
+    }
+
+    /**
+     * Starts to generate the sources of the current pattern in the background
+     */
+    private void startGeneration()
+    {
+        lblStatus.setText("");
+        lblStatus.setToolTipText(null);
+        String projectDir = SYSTEM.getProjectDir();
+        if (projectDir == null || projectDir.isEmpty())
+        {
+            // the user has not chosen a directory
+            return;
+        }
+        java.io.File targetDir = new java.io.File(projectDir);
+        if (!confirmNames(targetDir))
+        {
+            return;
+        }
+        generation = new GenerationWorker(currentPattern, targetDir,
+                btnBack.isEnabled());
+        setGenerating(true);
+        generation.execute();
+    }
+
+    /**
+     * Checks the class names of all components before the generation and
+     * asks before existing classes are replaced
+     *
+     * @param targetDir Directory the sources are written to
+     * @return true if the sources may be generated
+     */
+    private boolean confirmNames(java.io.File targetDir)
+    {
+        String[] names = Utils.getClassNames(currentPattern);
+        java.util.Set<String> indexed = Utils.getIndexedTypeNames(targetDir);
+        NameValidator.Problem[] problems = indexed == null
+                ? NameValidator.validate(names, targetDir)
+                : NameValidator.validate(names, indexed);
+        StringBuilder existing = new StringBuilder();
+        for (int i = 0; i < problems.length; i++)
+        {
+            if (problems[i] == NameValidator.Problem.FILE_EXISTS)
+            {
+                existing.append(names[i]).append(".java\n");
+            }
+            else if (problems[i] != null)
+            {
+                lblStatus.setText(problems[i].getMessage(names[i]));
+                return false;
+            }
+        }
+        return existing.length() == 0 || JOptionPane.showConfirmDialog(this,
+                Messages.DATA_MODEL.format("OVERWRITE_QUESTION", existing),
+                Messages.DATA_MODEL.getString("OVERWRITE_TITLE"),
+                JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE)
+                == JOptionPane.YES_OPTION;
+    }
+
+    /**
+     * Locks the wizard while the sources are generated
+     *
+     * @param running true if the generation is running
+     */
+    private void setGenerating(boolean running)
+    {
+        btnNext.setEnabled(!running);
+        btnBack.setEnabled(!running && generation.BACK_ENABLED);
+        edtName.setEditable(!running);
+        trvPatterns.setEnabled(!running);
+        edtSearch.setEnabled(!running);
+        prgGeneration.setValue(0);
+        prgGeneration.setString("");
+        prgGeneration.setVisible(running);
+    }
+
+    /**
+     * Updates the preview with the class name typed so far and checks the
+     * name
+     */
+    private void edtNameChanged()
+    {
+        if (currentComponent != null)
+        {
+            preview.show(currentComponent, edtName.getText());
+            checkName();
+        }
+    }
+
+    /**
+     * Checks the class name typed so far together with the names of the
+     * other components; the wizard continues only with a valid name. Once
+     * the type names of the project are indexed, a name that exists already
+     * is reported as well, but does not stop the wizard.
+     */
+    private void checkName()
+    {
+        PatternComponent[] components = currentPattern.getAllComponents();
+        String[] names = new String[components.length];
+        int index = 0;
+        for (int i = 0; i < components.length; i++)
+        {
+            if (components[i] == currentComponent)
+            {
+                index = i;
+                names[i] = edtName.getText();
+            }
+            else
+            {
+                names[i] = components[i].getClassName();
+            }
+        }
+        java.util.Set<String> existing = java.util.Collections.emptySet();
+        java.io.File targetDir = SYSTEM.getTargetDir();
+        if (targetDir != null)
+        {
+            TypeNameIndex typeIndex = TypeNameIndex.forRoot(targetDir);
+            if (typeIndex.isReady())
+            {
+                existing = typeIndex.getTypeNames(targetDir);
+            }
+        }
+        NameValidator.Problem problem = NameValidator.validate(names,
+                existing)[index];
+        lblStatus.setText(problem == null ? "" : problem.getMessage(names[index]));
+        lblStatus.setToolTipText(null);
+        btnNext.setEnabled((problem == null
+                || problem == NameValidator.Problem.FILE_EXISTS)
+                && generation == null);
+    }
+
+    /**
+     * Filters the pattern tree by the text of the search field and expands
+     * all categories while a filter is set
+     */
+    private void edtSearchChanged()
+    {
+        String query = edtSearch.getText().trim();
+        if (query.isEmpty())
+        {
+            patternTree.setFilter(null);
+        }
+        else
+        {
+            patternTree.setFilter(EnumPatterns.getIndex().search(query));
+            for (int row = 0; row < trvPatterns.getRowCount(); row++)
+            {
+                trvPatterns.expandRow(row);
+            }
+        }
     }
 
     /**
@@ -143,14 +440,12 @@ public class PatternCoderFrame extends JFrame
         pnlInput.setVisible(false);
         txtDescription.setText(INFORMATION_PREFIX + currentPattern.DESC
                 + INFORMATION_POSTFIX);
-        lblDesignPattern.setText(currentPattern.NAME
-                + java.util.ResourceBundle.getBundle(
-                "org/patterncoder/delegate/Bundle").getString(
-                "Overview"));
-        lblStepDesc.setText(java.util.ResourceBundle.getBundle(
-                "org/patterncoder/delegate/Bundle").getString(
-                "FURTHERINFORMATION"));
+        lblDesignPattern.setText(currentPattern.NAME + OVERVIEW);
+        lblStepDesc.setText(FURTHER_INFORMATION);
         currentComponent = null;
+        lblStatus.setText("");
+        preview.setPattern(currentPattern, Utils.getPackageLine(SYSTEM));
+        tabDescription.setSelectedIndex(0);
         Image image = currentPattern.getImage();
         showImage(image);
     }
@@ -165,15 +460,11 @@ public class PatternCoderFrame extends JFrame
         edtComponent.setText(component.COMP_TYPE);
         edtName.setText(component.getClassName());
         txtDescription.setText(component.DESC);
+        preview.show(component, edtName.getText());
         lblStepDesc.setText(component.getWizardDesc());
-        String information = java.text.MessageFormat.format(
-                java.util.ResourceBundle.getBundle(
-                "org/patterncoder/delegate/Bundle").getString(
-                "Step_Number"), new Object[]
-                {
-                    component.CLASS_ID, currentPattern.stepCount(),
-                    currentComponent.getWizardName()
-                });
+        String information = Messages.DELEGATE.format("Step_Number",
+                component.CLASS_ID, currentPattern.stepCount(),
+                currentComponent.getWizardName());
         lblDesignPattern.setText(information);
     }
 
@@ -212,7 +503,7 @@ public class PatternCoderFrame extends JFrame
         pnlHeader.setBackground(new java.awt.Color(255, 255, 255));
 
         lblDesignPattern.setFont(new java.awt.Font("Tahoma", 1, 12)); // NOI18N
-        java.util.ResourceBundle bundle = java.util.ResourceBundle.getBundle("org/patterncoder/delegate/Bundle"); // NOI18N
+        java.util.ResourceBundle bundle = Messages.DELEGATE.getBundle(); // NOI18N
         lblDesignPattern.setText(bundle.getString("SELECT DESIGN PATTERN")); // NOI18N
 
         lblStepDesc.setText(bundle.getString("SELECT_PATTERN")); // NOI18N
@@ -492,6 +783,7 @@ public class PatternCoderFrame extends JFrame
             lblDesignPattern.setText(SELECT_PATTERN);
         }
         btnBack.setEnabled(false);
+        PatternLibrary.reportLoadProblems();
     }
 
     private void btnNextActionPerformed(java.awt.event.ActionEvent evt)
@@ -499,15 +791,7 @@ public class PatternCoderFrame extends JFrame
         if (currentPattern.isLastComponent(currentComponent))
         {
             currentComponent.setClassName(edtName.getText());
-            try
-            {
-                Utils.createFiles(currentPattern);
-            }
-            catch (Throwable t)
-            {
-                new ErrorDialog(t.getMessage(), t).setVisible(true);
-            }
-            this.dispose();
+            startGeneration();
         }
         else
         {
@@ -540,13 +824,44 @@ public class PatternCoderFrame extends JFrame
         }
         currentComponent = previousComponent;
         loadComponent(currentComponent);
-        btnNext.setText(java.util.ResourceBundle.getBundle(
-                "org/patterncoder/delegate/Bundle").getString("NEXT"));
+        btnNext.setText(BTN_NEXT);
     }
 
     private void btnCancelActionPerformed(java.awt.event.ActionEvent evt)
     {
-        this.dispose();
+        if (generation != null)
+        {
+            generation.requestStop();
+        }
+        else
+        {
+            this.dispose();
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        if (generation != null)
+        {
+            generation.requestStop();
+        }
+        preview.dispose();
+        try
+        {
+            // digests of patterns loaded on first use
+            TrustStore.getInstance().save();
+        }
+        catch (IOException e)
+        {
+            Diagnostics diagnostics = new Diagnostics();
+            diagnostics.add(Diagnostics.Severity.WARNING, "", "",
+                    e.getMessage(), e);
+            diagnostics.report();
+        }
+        // the model is shared by all frames and would keep the tree
+        trvPatterns.setModel(null);
+        super.dispose();
     }
 
     private void pnlImageComponentResized(java.awt.event.ComponentEvent evt)
@@ -557,11 +872,102 @@ public class PatternCoderFrame extends JFrame
             showImage(image);
         }
     }
+    /**
+     * Generates the sources of the current pattern in the background; the
+     * frame is closed when all sources have been written.<br>
+     * A stop is only requested: the generation stops before it writes the
+     * next file or replaces the sources, and the wizard is unlocked when the
+     * generation has actually ended. Once the sources are being replaced, the
+     * generation completes.
+     */
+    private class GenerationWorker extends javax.swing.SwingWorker<Boolean, String>
+            implements Utils.Progress
+    {
+        private final Pattern PATTERN;
+        private final java.io.File PROJECT_DIR;
+        /**
+         * State of the back button before the generation
+         */
+        private final boolean BACK_ENABLED;
+        private volatile boolean stopRequested = false;
+
+        GenerationWorker(Pattern pattern, java.io.File projectDir,
+                boolean backEnabled)
+        {
+            this.PATTERN = pattern;
+            this.PROJECT_DIR = projectDir;
+            this.BACK_ENABLED = backEnabled;
+        }
+
+        @Override
+        protected Boolean doInBackground() throws IOException
+        {
+            return Utils.createFiles(PATTERN, PROJECT_DIR, this);
+        }
+
+        /**
+         * Asks the generation to stop
+         */
+        void requestStop()
+        {
+            stopRequested = true;
+        }
+
+        @Override
+        public boolean isStopRequested()
+        {
+            return stopRequested;
+        }
+
+        @Override
+        public void fileWritten(String fileName, int count, int total)
+        {
+            setProgress(100 * count / total);
+            publish(fileName);
+        }
+
+        @Override
+        protected void process(java.util.List<String> fileNames)
+        {
+            prgGeneration.setValue(getProgress());
+            prgGeneration.setString(fileNames.get(fileNames.size() - 1));
+        }
+
+        @Override
+        protected void done()
+        {
+            java.util.ResourceBundle bundle = Messages.DELEGATE.getBundle();
+            try
+            {
+                if (get())
+                {
+                    generation = null;
+                    PatternCoderFrame.this.dispose();
+                    return;
+                }
+                lblStatus.setText(bundle.getString("GENERATION_CANCELLED"));
+            }
+            catch (InterruptedException ex)
+            {
+                lblStatus.setText(bundle.getString("GENERATION_CANCELLED"));
+            }
+            catch (java.util.concurrent.ExecutionException ex)
+            {
+                Throwable cause = ex.getCause();
+                lblStatus.setText(Messages.DELEGATE.format("GENERATION_FAILED",
+                        cause.getMessage()));
+                lblStatus.setToolTipText(String.valueOf(cause));
+            }
+            setGenerating(false);
+            generation = null;
+        }
+    }
     private javax.swing.JButton btnBack;
     private javax.swing.JButton btnCancel;
     private javax.swing.JButton btnNext;
     private javax.swing.JTextField edtComponent;
     private javax.swing.JTextField edtName;
+    private javax.swing.JTextField edtSearch;
     private javax.swing.JScrollPane jScrollPane1;
     private javax.swing.JScrollPane jScrollPane3;
     private javax.swing.JSplitPane jSplitPane1;
@@ -581,4 +987,13 @@ public class PatternCoderFrame extends JFrame
     private javax.swing.JSeparator sprFooter;
     private javax.swing.JTree trvPatterns;
     private javax.swing.JEditorPane txtDescription;
+    private javax.swing.JTabbedPane tabDescription;
+    private javax.swing.JTextArea txtPreview;
+    private SourcePreview preview;
+    private javax.swing.JLabel lblStatus;
+    private javax.swing.JProgressBar prgGeneration;
+    /**
+     * Running generation or null
+     */
+    private GenerationWorker generation;
 }
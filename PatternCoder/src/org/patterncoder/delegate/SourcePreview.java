@@ -0,0 +1,252 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.delegate;
+
+import java.awt.EventQueue;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import org.patterncoder.dataModel.Pattern;
+import org.patterncoder.dataModel.PatternComponent;
+import org.patterncoder.utils.Utils;
+
+/**
+ * Shows the source code that will be generated for the current component
+ * while the user types its class name.<br>
+ * Rendering waits until the user has stopped typing for {@link #DELAY}
+ * milliseconds and runs on a background thread; a render that is still running
+ * when the name changes again is cancelled and its result dropped. Rendered
+ * sources are kept per component; a changed name only discards the source of
+ * its own component and of the components depending on it. All methods must
+ * be called on the event thread.
+ */
+class SourcePreview
+{
+    /**
+     * Milliseconds without typing before the preview is rendered
+     */
+    static final int DELAY = 250;
+    private final JTextArea target;
+    private final Timer timer;
+    private final ExecutorService renderer;
+    /**
+     * Rendered sources by component, valid for the current class names
+     */
+    private final Map<PatternComponent, String> rendered = new IdentityHashMap<PatternComponent, String>();
+    private Pattern pattern;
+    private PatternComponent component;
+    private String[] classNames;
+    private String packageLine;
+    /**
+     * Incremented whenever a running render becomes outdated
+     */
+    private int generation = 0;
+    private Future<?> running;
+
+    /**
+     * Creates a preview
+     *
+     * @param target Text area showing the rendered source
+     */
+    SourcePreview(JTextArea target)
+    {
+        this.target = target;
+        this.timer = new Timer(DELAY, new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent evt)
+            {
+                render();
+            }
+        });
+        this.timer.setRepeats(false);
+        this.renderer = Executors.newSingleThreadExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "patternCoder preview");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Starts the preview of a pattern; all sources rendered before are
+     * discarded
+     *
+     * @param pattern The selected pattern
+     * @param packageLine Package statement of the generated sources
+     */
+    void setPattern(Pattern pattern, String packageLine)
+    {
+        cancel();
+        rendered.clear();
+        this.pattern = pattern;
+        this.packageLine = packageLine;
+        this.classNames = Utils.getClassNames(pattern);
+        this.component = null;
+        target.setText("");
+    }
+
+    /**
+     * Shows the source of a component with the class name typed so far
+     *
+     * @param component Component to show
+     * @param className Class name as entered by the user
+     */
+    void show(PatternComponent component, String className)
+    {
+        if (pattern == null)
+        {
+            return;
+        }
+        int index = pattern.getStepNumber(component);
+        if (!className.equals(classNames[index]))
+        {
+            classNames[index] = className;
+            invalidate(index);
+        }
+        if (component != this.component)
+        {
+            this.component = component;
+            String source = rendered.get(component);
+            if (source != null)
+            {
+                timer.stop();
+                showSource(source);
+                return;
+            }
+        }
+        timer.restart();
+    }
+
+    /**
+     * Stops rendering; the preview cannot be used afterwards
+     */
+    void dispose()
+    {
+        cancel();
+        timer.stop();
+        renderer.shutdownNow();
+    }
+
+    /**
+     * Discards the sources depending on the class name of a component
+     *
+     * @param index Index of the component whose name has changed
+     */
+    private void invalidate(int index)
+    {
+        cancel();
+        rendered.remove(pattern.getComponent(index));
+        // dependencies are numbered from 1
+        String dependency = String.valueOf(index + 1);
+        for (PatternComponent tempCompo : pattern.getAllComponents())
+        {
+            for (String dep : tempCompo.getAllDependencies())
+            {
+                if (dep.equals(dependency))
+                {
+                    rendered.remove(tempCompo);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void cancel()
+    {
+        generation++;
+        if (running != null)
+        {
+            running.cancel(true);
+            running = null;
+        }
+    }
+
+    /**
+     * Renders the current component in the background unless its source is
+     * still valid
+     */
+    private void render()
+    {
+        if (component == null)
+        {
+            return;
+        }
+        String source = rendered.get(component);
+        if (source != null)
+        {
+            showSource(source);
+            return;
+        }
+        cancel();
+        final int renderGeneration = generation;
+        final Pattern renderPattern = pattern;
+        final PatternComponent renderComponent = component;
+        final String[] renderNames = classNames.clone();
+        final String renderPackageLine = packageLine;
+        running = renderer.submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                final String result = Utils.render(renderPattern,
+                        renderComponent, renderNames, renderPackageLine);
+                if (Thread.currentThread().isInterrupted())
+                {
+                    return;
+                }
+                EventQueue.invokeLater(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        if (renderGeneration != generation)
+                        {
+                            return;
+                        }
+                        running = null;
+                        rendered.put(renderComponent, result);
+                        if (renderComponent == component)
+                        {
+                            showSource(result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void showSource(String source)
+    {
+        target.setText(source);
+        target.setCaretPosition(0);
+    }
+}
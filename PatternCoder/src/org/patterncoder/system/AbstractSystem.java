@@ -1,6 +1,7 @@
 package org.patterncoder.system;
 
 import java.io.File;
+import java.net.URL;
 
 public abstract class AbstractSystem
 {
@@ -16,6 +17,19 @@ public abstract class AbstractSystem
 
     public abstract String getProjectDir();
 
+    /**
+     * Returns the directory of the project open in the IDE without asking
+     * the user; the type names of this project are indexed. Default value is
+     * null, e.g. for the stand-alone version, which asks for a directory on
+     * every generation.
+     *
+     * @return The project directory or null
+     */
+    public File getTargetDir()
+    {
+        return null;
+    }
+
     public abstract void setPackage(Object myPackage);
 
     public abstract int getCloseStrategy();
@@ -28,6 +42,23 @@ public abstract class AbstractSystem
     {
     }
 
+    /**
+     * Starts a group of changes to the project; reloads requested before the
+     * matching {@link #endBatch()} may be executed once at its end.
+     * Standard: do nothing
+     */
+    public void beginBatch()
+    {
+    }
+
+    /**
+     * Ends a group of changes started by {@link #beginBatch()}; standard: do
+     * nothing
+     */
+    public void endBatch()
+    {
+    }
+
     /**
      * Returns the name of the currently opened package in the IDE; default
      * value is ""
@@ -40,4 +71,17 @@ public abstract class AbstractSystem
     }
 
     public abstract File getCoderDir();
+
+    /**
+     * Returns a packed pattern library that is bundled with the application;
+     * default value is null, i.e. the patterns are read from the PatternFiles
+     * folder
+     *
+     * @param name File name of the packed library
+     * @return The bundled library or null if there is none
+     */
+    public URL getBundledLibrary(String name)
+    {
+        return null;
+    }
 }
@@ -16,23 +16,29 @@ public class BlueJSystem extends AbstractSystem
     {
         super();
         this.BLUEJ = blueJ;
+        AbstractSystem.instance = this;
     }
 
+    /**
+     * Requests a reload of the package; reloads requested in quick succession
+     * are executed once by the {@link ReloadScheduler}
+     */
     @Override
     public void reload()
     {
-        try
-        {
-            myPackage.reload();
-        }
-        catch (ProjectNotOpenException ex)
-        {
-            (new ErrorDialog("BlueJHandler.reload()\n" + ex.getMessage(), ex)).setVisible(true);
-        }
-        catch (PackageNotFoundException ex)
-        {
-            (new ErrorDialog("BlueJHandler.reload()\n" + ex.getMessage(), ex)).setVisible(true);
-        }
+        ReloadScheduler.getInstance().reload(myPackage);
+    }
+
+    @Override
+    public void beginBatch()
+    {
+        ReloadScheduler.getInstance().beginBatch();
+    }
+
+    @Override
+    public void endBatch()
+    {
+        ReloadScheduler.getInstance().endBatch();
     }
 
     @Override
@@ -74,59 +80,47 @@ public class BlueJSystem extends AbstractSystem
      * extensions: <User Home>\bluej\extensions\ <BlueJ Home>\lib\extensions\
      * <BlueJ Project>\extensions\ <br> These locations are checked for the
      * PatternImages folder and if found that location is returned. If no folder
-     * is found at any of the locations an Exception is thrown.
+     * is found at any of the locations null is returned. Only a folder of
+     * the installation is cached; the project folder is looked up on every
+     * call, as it changes with the current project.
      *
      * @return File instance representing the location of the PatternImages
-     * folder
-     * @throws ProjectNotOpenException
-     * @throws FileNotFoundException If PatternFile directory could not be found
+     * folder, or null if it could not be found
      */
     @Override
     public File getCoderDir()
     {
         if (filePatternCoderDir == null)
         {
-            File baseDir = BLUEJ.getSystemLibDir();
-            filePatternCoderDir = new File(baseDir, EXTENSION_DIR_NAME
-                    + SEPARATOR + PATTERN_FILES_DIR_NAME);
-            if (filePatternCoderDir.exists())
+            File found = patternFilesIn(BLUEJ.getSystemLibDir());
+            if (found == null)
             {
-                return filePatternCoderDir;
+                found = patternFilesIn(BLUEJ.getUserConfigDir());
             }
-            else
-            {
-                baseDir = BLUEJ.getUserConfigDir();
-                filePatternCoderDir = new File(baseDir, EXTENSION_DIR_NAME
-                        + SEPARATOR + PATTERN_FILES_DIR_NAME);
-                if (filePatternCoderDir.exists())
-                {
-                    return filePatternCoderDir;
-                }
-                else
-                {
-                    try
-                    {
-                        baseDir = BLUEJ.getCurrentPackage().getProject().getDir();
-                        filePatternCoderDir = new File(baseDir,
-                                EXTENSION_DIR_NAME + SEPARATOR
-                                + PATTERN_FILES_DIR_NAME);
-                        if (filePatternCoderDir.exists())
-                        {
-                            return filePatternCoderDir;
-                        }
-                    }
-                    catch (ProjectNotOpenException e)
-                    {
-                        new ErrorDialog(e.getMessage(), e).setVisible(true);
-                    }
-                }
-            }
-            return null;
+            filePatternCoderDir = found;
         }
-        else
+        if (filePatternCoderDir != null)
         {
             return filePatternCoderDir;
         }
+        return patternFilesIn(getTargetDir());
+    }
+
+    /**
+     * Returns the PatternFiles folder of an extensions folder
+     *
+     * @param baseDir Directory containing the extensions folder, may be null
+     * @return The PatternFiles folder or null if it does not exist
+     */
+    private File patternFilesIn(File baseDir)
+    {
+        if (baseDir == null)
+        {
+            return null;
+        }
+        File result = new File(baseDir, EXTENSION_DIR_NAME + SEPARATOR
+                + PATTERN_FILES_DIR_NAME);
+        return result.isDirectory() ? result : null;
     }
 
     @Override
@@ -146,6 +140,25 @@ public class BlueJSystem extends AbstractSystem
         return result.getPath();
     }
 
+    /**
+     * Returns the directory of the current project without reporting errors
+     *
+     * @return The directory or null if no project is open
+     */
+    @Override
+    public File getTargetDir()
+    {
+        try
+        {
+            BPackage current = BLUEJ.getCurrentPackage();
+            return current == null ? null : current.getProject().getDir();
+        }
+        catch (ProjectNotOpenException e)
+        {
+            return null;
+        }
+    }
+
     @Override
     public String toString()
     {
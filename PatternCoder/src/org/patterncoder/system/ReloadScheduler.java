@@ -0,0 +1,179 @@
+package org.patterncoder.system;
+
+import bluej.extensions.BPackage;
+import bluej.extensions.MissingJavaFileException;
+import bluej.extensions.PackageNotFoundException;
+import bluej.extensions.ProjectNotOpenException;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.Timer;
+import org.patterncoder.delegate.ErrorDialog;
+
+/**
+ * Collects requests to add classes to a BlueJ package and to reload it, and
+ * passes them to BlueJ in one go.<br>
+ * Every reload makes BlueJ scan and compile the package again. Requests are
+ * therefore held until no further request has arrived for the delay given by
+ * the system property "patterncoder.reloadDelay" (default
+ * {@link #DEFAULT_DELAY} ms), or until the outermost batch started by
+ * {@link #beginBatch()} has ended. Then each package gets its new classes and
+ * a single reload. The requests are executed on the event thread.
+ */
+public class ReloadScheduler
+{
+    /**
+     * Default delay in milliseconds
+     */
+    public static final int DEFAULT_DELAY = 500;
+    private static final ReloadScheduler INSTANCE = new ReloadScheduler();
+    /**
+     * Classes to add by package, in the order of the requests; a package
+     * without classes is only reloaded. Guarded by this.
+     */
+    private final Map<BPackage, Set<String>> pending = new LinkedHashMap<BPackage, Set<String>>();
+    private final Timer timer;
+    /**
+     * Number of open batches; guarded by this
+     */
+    private int batches = 0;
+
+    private ReloadScheduler()
+    {
+        timer = new Timer(Integer.getInteger("patterncoder.reloadDelay",
+                DEFAULT_DELAY), new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent evt)
+            {
+                flush();
+            }
+        });
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Returns the scheduler
+     *
+     * @return The only instance
+     */
+    public static ReloadScheduler getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Requests to add a class to a package; the package is reloaded
+     * afterwards
+     *
+     * @param myPackage Target package
+     * @param className Name of the class; its source file must exist
+     */
+    public synchronized void addClass(BPackage myPackage, String className)
+    {
+        request(myPackage).add(className);
+        schedule();
+    }
+
+    /**
+     * Requests to reload a package
+     *
+     * @param myPackage Package to reload
+     */
+    public synchronized void reload(BPackage myPackage)
+    {
+        request(myPackage);
+        schedule();
+    }
+
+    /**
+     * Holds all requests until the matching call of {@link #endBatch()}.
+     * Batches may be nested.
+     */
+    public synchronized void beginBatch()
+    {
+        batches++;
+        timer.stop();
+    }
+
+    /**
+     * Ends a batch; when the outermost batch ends, the requests are executed
+     * without further delay
+     */
+    public synchronized void endBatch()
+    {
+        if (batches > 0 && --batches == 0 && !pending.isEmpty())
+        {
+            timer.setInitialDelay(0);
+            timer.restart();
+        }
+    }
+
+    private Set<String> request(BPackage myPackage)
+    {
+        Set<String> classNames = pending.get(myPackage);
+        if (classNames == null)
+        {
+            classNames = new LinkedHashSet<String>();
+            pending.put(myPackage, classNames);
+        }
+        return classNames;
+    }
+
+    private void schedule()
+    {
+        if (batches == 0)
+        {
+            timer.setInitialDelay(timer.getDelay());
+            timer.restart();
+        }
+    }
+
+    /**
+     * Executes all pending requests; called on the event thread
+     */
+    private void flush()
+    {
+        Map<BPackage, Set<String>> requests;
+        synchronized (this)
+        {
+            if (batches > 0)
+            {
+                return;
+            }
+            requests = new LinkedHashMap<BPackage, Set<String>>(pending);
+            pending.clear();
+        }
+        for (Map.Entry<BPackage, Set<String>> request : requests.entrySet())
+        {
+            BPackage myPackage = request.getKey();
+            try
+            {
+                for (String className : request.getValue())
+                {
+                    try
+                    {
+                        myPackage.newClass(className);
+                    }
+                    catch (MissingJavaFileException ex)
+                    {
+                        // the reload shows all classes that do exist
+                        (new ErrorDialog(ex.getMessage(), ex)).setVisible(true);
+                    }
+                }
+                myPackage.reload();
+            }
+            catch (ProjectNotOpenException ex)
+            {
+                (new ErrorDialog("BlueJHandler.reload()\n" + ex.getMessage(), ex)).setVisible(true);
+            }
+            catch (PackageNotFoundException ex)
+            {
+                (new ErrorDialog("BlueJHandler.reload()\n" + ex.getMessage(), ex)).setVisible(true);
+            }
+        }
+    }
+}
@@ -7,6 +7,12 @@ import javax.swing.JFrame;
 
 public class StandAloneSystem extends AbstractSystem
 {
+    /**
+     * Folder in the class path containing the packed pattern libraries of the
+     * stand-alone version
+     */
+    public static final String LIBRARY_RESOURCE_DIR = "/org/patterncoder/library/";
+
     public StandAloneSystem()
     {
         AbstractSystem.instance = this;
@@ -24,20 +30,51 @@ public class StandAloneSystem extends AbstractSystem
         return JFrame.EXIT_ON_CLOSE;
     }
 
+    /**
+     * Returns the PatternFiles folder in the folder of the class path entry
+     * containing this class: inside the classes folder or next to the jar
+     *
+     * @return The PatternFiles folder
+     */
     @Override
     public File getCoderDir()
     {
-        // find path of jar
-        URL url = this.getClass().getResource("StandAloneSystem.class");
-        String urlOfInstallation = url.toString();
-        int index = urlOfInstallation.indexOf("org/patterncoder/system/StandAloneSystem.class");
-        urlOfInstallation = urlOfInstallation.substring(0, index);
-        urlOfInstallation = urlOfInstallation.replaceAll("file:", "");
-        filePatternCoderDir = new File(urlOfInstallation,
-                PATTERN_FILES_DIR_NAME);
+        if (filePatternCoderDir == null)
+        {
+            File installation;
+            try
+            {
+                installation = new File(StandAloneSystem.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            }
+            catch (Exception ex)
+            {
+                // no file system location, e.g. in a nested jar
+                installation = new File(System.getProperty("user.dir"));
+            }
+            if (installation.isFile())
+            {
+                installation = installation.getParentFile();
+            }
+            filePatternCoderDir = new File(installation,
+                    PATTERN_FILES_DIR_NAME);
+        }
         return filePatternCoderDir;
     }
 
+    /**
+     * Looks up a packed library in the class path, so the stand-alone version
+     * can ship its patterns inside the jar. Returns null if the library is not
+     * bundled; the PatternFiles folder next to the jar is used then.
+     *
+     * @param name File name of the packed library
+     * @return The bundled library or null if there is none
+     */
+    @Override
+    public URL getBundledLibrary(String name)
+    {
+        return StandAloneSystem.class.getResource(LIBRARY_RESOURCE_DIR + name);
+    }
+
     @Override
     public String getProjectDir()
     {
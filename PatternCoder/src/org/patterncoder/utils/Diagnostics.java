@@ -0,0 +1,235 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.utils;
+
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.patterncoder.delegate.ErrorDialog;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Collects the problems found while the pattern library is loaded.<br>
+ * Loading goes on after a problem has been recorded; when it is finished
+ * {@link #report()} shows all problems at once: in a single dialog or, if
+ * there is no display, as tab separated lines on the error stream.
+ */
+public class Diagnostics
+{
+    /**
+     * Severity of a problem
+     */
+    public enum Severity
+    {
+        WARNING, ERROR, FATAL
+    }
+
+    /**
+     * A single problem with its location in the pattern library
+     */
+    public static class Problem
+    {
+        /**
+         * Severity of the problem
+         */
+        public final Severity SEVERITY;
+        /**
+         * Name of the archive, may be empty
+         */
+        public final String ARCHIVE;
+        /**
+         * Name of the entry inside the archive, may be empty
+         */
+        public final String ENTRY;
+        /**
+         * Line in the entry or -1 if unknown
+         */
+        public final int LINE;
+        /**
+         * Column in the entry or -1 if unknown
+         */
+        public final int COLUMN;
+        /**
+         * Description of the problem
+         */
+        public final String MESSAGE;
+        /**
+         * Cause of the problem, may be null
+         */
+        public final Throwable CAUSE;
+
+        private Problem(Severity severity, String archive, String entry,
+                int line, int column, String message, Throwable cause)
+        {
+            this.SEVERITY = severity;
+            this.ARCHIVE = archive == null ? "" : archive;
+            this.ENTRY = entry == null ? "" : entry;
+            this.LINE = line;
+            this.COLUMN = column;
+            this.MESSAGE = message == null ? String.valueOf(cause) : message;
+            this.CAUSE = cause;
+        }
+
+        /**
+         * Returns the problem as one tab separated line: severity, archive,
+         * entry, line, column and message
+         *
+         * @return Machine readable form of the problem
+         */
+        public String toRecord()
+        {
+            return SEVERITY + "\t" + ARCHIVE + "\t" + ENTRY + "\t" + LINE
+                    + "\t" + COLUMN + "\t"
+                    + MESSAGE.replace('\t', ' ').replace('\n', ' ');
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder result = new StringBuilder(ARCHIVE);
+            if (!ENTRY.isEmpty())
+            {
+                result.append('!').append(ENTRY);
+            }
+            if (LINE >= 0)
+            {
+                result.append(':').append(LINE);
+                if (COLUMN >= 0)
+                {
+                    result.append(':').append(COLUMN);
+                }
+            }
+            return result.append(" [").append(SEVERITY).append("] ").append(
+                    MESSAGE).toString();
+        }
+    }
+    /**
+     * All recorded problems; guarded by this
+     */
+    private final List<Problem> problems = new ArrayList<Problem>();
+
+    /**
+     * Records a problem without a known position in the entry
+     *
+     * @param severity Severity of the problem
+     * @param archive Name of the archive
+     * @param entry Name of the entry in the archive
+     * @param message Description of the problem
+     * @param cause Cause of the problem, may be null
+     */
+    public void add(Severity severity, String archive, String entry,
+            String message, Throwable cause)
+    {
+        add(new Problem(severity, archive, entry, -1, -1, message, cause));
+    }
+
+    /**
+     * Records a problem reported by the XML parser
+     *
+     * @param severity Severity of the problem
+     * @param archive Name of the archive
+     * @param entry Name of the entry in the archive
+     * @param ex Exception of the parser containing line and column
+     */
+    public void add(Severity severity, String archive, String entry,
+            SAXParseException ex)
+    {
+        add(new Problem(severity, archive, entry, ex.getLineNumber(),
+                ex.getColumnNumber(), ex.getMessage(), ex));
+    }
+
+    private synchronized void add(Problem problem)
+    {
+        problems.add(problem);
+    }
+
+    /**
+     * Returns all problems recorded so far
+     *
+     * @return Recorded problems in the order they were found
+     */
+    public synchronized Problem[] getProblems()
+    {
+        Problem[] result = new Problem[problems.size()];
+        problems.toArray(result);
+        return result;
+    }
+
+    /**
+     * Checks if any problem was recorded
+     *
+     * @return true if no problem was recorded
+     */
+    public synchronized boolean isEmpty()
+    {
+        return problems.isEmpty();
+    }
+
+    /**
+     * Removes all recorded problems
+     */
+    public synchronized void clear()
+    {
+        problems.clear();
+    }
+
+    /**
+     * Writes all problems as tab separated records, one per line
+     *
+     * @param out Target stream
+     */
+    public void print(PrintStream out)
+    {
+        for (Problem problem : getProblems())
+        {
+            out.println(problem.toRecord());
+        }
+        out.flush();
+    }
+
+    /**
+     * Shows a summary of all problems. Does nothing if no problem was
+     * recorded. In a headless environment the problems are printed to
+     * System.err, otherwise one non-modal dialog is shown on the event
+     * thread.
+     */
+    public void report()
+    {
+        if (isEmpty())
+        {
+            return;
+        }
+        if (GraphicsEnvironment.isHeadless())
+        {
+            print(System.err);
+            return;
+        }
+        final Problem[] allProblems = getProblems();
+        EventQueue.invokeLater(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                new ErrorDialog(allProblems).setVisible(true);
+            }
+        });
+    }
+}
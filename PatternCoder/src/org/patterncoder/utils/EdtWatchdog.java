@@ -0,0 +1,385 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.utils;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.InvocationEvent;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Watches the event dispatch thread for events that block the user
+ * interface.<br>
+ * The watchdog replaces the system event queue by a queue that measures every
+ * dispatched event. A sampling thread checks the event thread several times
+ * per threshold; if no event has started or finished for longer than the
+ * threshold, the stack of the event thread is recorded together with the
+ * event. The durations of all events are collected in histograms per event
+ * type.<br>
+ * The watchdog is installed if the system property "patterncoder.watchdog"
+ * holds the threshold in milliseconds, or with a threshold of
+ * {@link #DEFAULT_THRESHOLD} ms if "debug" is set. The statistics are printed
+ * to System.err when the virtual machine exits and on demand by
+ * {@link #dump(PrintStream)}.
+ */
+public class EdtWatchdog
+{
+    /**
+     * Threshold in milliseconds used in debug mode
+     */
+    public static final int DEFAULT_THRESHOLD = 100;
+    /**
+     * Upper bounds in milliseconds of the histogram buckets; the last bucket
+     * takes all longer events
+     */
+    private static final long[] BUCKETS =
+    {
+        1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, Long.MAX_VALUE
+    };
+    /**
+     * Number of stalls kept; older stalls are dropped
+     */
+    private static final int MAX_STALLS = 50;
+    private static EdtWatchdog instance;
+    private final long thresholdNanos;
+    /**
+     * Histograms by event type; guarded by this
+     */
+    private final Map<String, long[]> histograms = new TreeMap<String, long[]>();
+    /**
+     * Recorded stalls, oldest first; guarded by this
+     */
+    private final LinkedList<Stall> stalls = new LinkedList<Stall>();
+    /**
+     * Event thread, set by the first dispatched event
+     */
+    private volatile Thread eventThread;
+    /**
+     * Number of events being dispatched; more than one while a modal dialog
+     * runs a nested event loop
+     */
+    private volatile int depth = 0;
+    /**
+     * Time of the last start or end of an event
+     */
+    private volatile long lastProgress;
+    /**
+     * Event being dispatched by the innermost loop
+     */
+    private volatile AWTEvent currentEvent;
+    /**
+     * Stall of the current event, if one has been recorded
+     */
+    private volatile Stall currentStall;
+
+    /**
+     * A single event that blocked the event thread longer than the threshold
+     */
+    public static class Stall
+    {
+        /**
+         * Description of the event
+         */
+        public final String EVENT;
+        /**
+         * Stack of the event thread when the stall was detected
+         */
+        public final StackTraceElement[] STACK;
+        /**
+         * Time since the last progress of the event thread when the stall
+         * was detected, in milliseconds
+         */
+        public final long DETECTED_AFTER;
+        /**
+         * Duration of the event in milliseconds, -1 while it is running
+         */
+        private volatile long duration = -1;
+
+        private Stall(String event, StackTraceElement[] stack,
+                long detectedAfter)
+        {
+            this.EVENT = event;
+            this.STACK = stack;
+            this.DETECTED_AFTER = detectedAfter;
+        }
+
+        /**
+         * Returns the duration of the event
+         *
+         * @return Duration in milliseconds, -1 while the event is running
+         */
+        public long getDuration()
+        {
+            return duration;
+        }
+    }
+
+    private EdtWatchdog(long thresholdMillis)
+    {
+        this.thresholdNanos = thresholdMillis * 1000000L;
+    }
+
+    /**
+     * Installs the watchdog if it is enabled by a system property. Further
+     * calls do nothing.
+     */
+    public static synchronized void install()
+    {
+        if (instance != null)
+        {
+            return;
+        }
+        long threshold;
+        String value = System.getProperty("patterncoder.watchdog");
+        if (value != null)
+        {
+            try
+            {
+                threshold = Long.parseLong(value.trim());
+            }
+            catch (NumberFormatException ex)
+            {
+                threshold = DEFAULT_THRESHOLD;
+            }
+        }
+        else if (System.getProperty("debug") != null)
+        {
+            threshold = DEFAULT_THRESHOLD;
+        }
+        else
+        {
+            return;
+        }
+        instance = new EdtWatchdog(Math.max(threshold, 1));
+        instance.start();
+    }
+
+    /**
+     * Returns the installed watchdog
+     *
+     * @return The watchdog or null if it is not installed
+     */
+    public static synchronized EdtWatchdog getInstance()
+    {
+        return instance;
+    }
+
+    private void start()
+    {
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(
+                new EventQueue()
+                {
+                    @Override
+                    protected void dispatchEvent(AWTEvent event)
+                    {
+                        AWTEvent outer = currentEvent;
+                        long start = beforeDispatch(event);
+                        try
+                        {
+                            super.dispatchEvent(event);
+                        }
+                        finally
+                        {
+                            afterDispatch(event, start, outer);
+                        }
+                    }
+                });
+        Thread sampler = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                sample();
+            }
+        }, "patternCoder EDT watchdog");
+        sampler.setDaemon(true);
+        sampler.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                dump(System.err);
+            }
+        }));
+    }
+
+    private long beforeDispatch(AWTEvent event)
+    {
+        long start = System.nanoTime();
+        eventThread = Thread.currentThread();
+        currentEvent = event;
+        currentStall = null;
+        lastProgress = start;
+        depth++;
+        return start;
+    }
+
+    private void afterDispatch(AWTEvent event, long start, AWTEvent outer)
+    {
+        long end = System.nanoTime();
+        depth--;
+        lastProgress = end;
+        long millis = (end - start) / 1000000L;
+        Stall stall = currentStall;
+        if (stall != null && currentEvent == event)
+        {
+            stall.duration = millis;
+        }
+        // back in the event that ran the nested loop, if any
+        currentEvent = outer;
+        currentStall = null;
+        record(typeOf(event), millis);
+    }
+
+    /**
+     * Loop of the sampling thread
+     */
+    private void sample()
+    {
+        long interval = Math.max(thresholdNanos / 4000000L, 10);
+        while (true)
+        {
+            try
+            {
+                Thread.sleep(interval);
+            }
+            catch (InterruptedException ex)
+            {
+                return;
+            }
+            Thread thread = eventThread;
+            AWTEvent event = currentEvent;
+            long blocked = System.nanoTime() - lastProgress;
+            if (thread == null || depth == 0 || blocked < thresholdNanos
+                    || currentStall != null)
+            {
+                continue;
+            }
+            Stall stall = new Stall(describe(event), thread.getStackTrace(),
+                    blocked / 1000000L);
+            // the event may have finished while the stack was taken
+            if (event == currentEvent && depth > 0)
+            {
+                currentStall = stall;
+                synchronized (this)
+                {
+                    stalls.addLast(stall);
+                    if (stalls.size() > MAX_STALLS)
+                    {
+                        stalls.removeFirst();
+                    }
+                }
+            }
+        }
+    }
+
+    private synchronized void record(String type, long millis)
+    {
+        long[] histogram = histograms.get(type);
+        if (histogram == null)
+        {
+            histogram = new long[BUCKETS.length];
+            histograms.put(type, histogram);
+        }
+        int bucket = 0;
+        while (millis >= BUCKETS[bucket])
+        {
+            bucket++;
+        }
+        histogram[bucket]++;
+    }
+
+    /**
+     * Returns the stalls recorded so far
+     *
+     * @return Stalls, oldest first; at most the last 50 stalls are kept
+     */
+    public synchronized List<Stall> getStalls()
+    {
+        return new ArrayList<Stall>(stalls);
+    }
+
+    /**
+     * Prints the latency histograms and the recorded stalls
+     *
+     * @param out Target stream
+     */
+    public synchronized void dump(PrintStream out)
+    {
+        out.println("Event dispatch latency (ms), threshold "
+                + thresholdNanos / 1000000L + " ms");
+        StringBuilder header = new StringBuilder(String.format("%-24s", "event"));
+        for (int i = 0; i < BUCKETS.length; i++)
+        {
+            header.append(String.format("%7s", i < BUCKETS.length - 1 ? "<"
+                    + BUCKETS[i] : ">=" + BUCKETS[i - 1]));
+        }
+        out.println(header);
+        for (Map.Entry<String, long[]> entry : histograms.entrySet())
+        {
+            StringBuilder line = new StringBuilder(String.format("%-24s",
+                    entry.getKey()));
+            for (long count : entry.getValue())
+            {
+                line.append(String.format("%7d", count));
+            }
+            out.println(line);
+        }
+        out.println("Stalls: " + stalls.size());
+        for (Stall stall : stalls)
+        {
+            out.println(stall.EVENT + " blocked for "
+                    + (stall.duration < 0 ? "more than " + stall.DETECTED_AFTER
+                    : String.valueOf(stall.duration)) + " ms");
+            for (StackTraceElement element : stall.STACK)
+            {
+                out.println("\tat " + element);
+            }
+        }
+        out.flush();
+    }
+
+    private static String typeOf(AWTEvent event)
+    {
+        String name = event.getClass().getName();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static String describe(AWTEvent event)
+    {
+        if (event == null)
+        {
+            return "unknown event";
+        }
+        if (event instanceof InvocationEvent)
+        {
+            // paramString names the runnable
+            return typeOf(event) + " " + event.paramString();
+        }
+        return typeOf(event) + " " + event.paramString() + " on "
+                + event.getSource().getClass().getName();
+    }
+}
@@ -0,0 +1,115 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.utils;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * Language dependant texts of one resource bundle.<br>
+ * The bundle is resolved once and kept until the default locale changes, so
+ * frequent lookups do not search the bundle again. If the build has
+ * precompiled the properties files with {@link MessagesCompiler}, the bundle
+ * is loaded from the generated classes and no properties file is parsed.
+ */
+public final class Messages
+{
+    /**
+     * Texts of the package org.patterncoder
+     */
+    public static final Messages PATTERN_CODER = new Messages(
+            "org.patterncoder.Bundle");
+    /**
+     * Texts of the package org.patterncoder.dataModel
+     */
+    public static final Messages DATA_MODEL = new Messages(
+            "org.patterncoder.dataModel.Bundle");
+    /**
+     * Texts of the package org.patterncoder.delegate
+     */
+    public static final Messages DELEGATE = new Messages(
+            "org.patterncoder.delegate.Bundle");
+    private final String BASE_NAME;
+    /**
+     * Bundle of the locale it was resolved for
+     */
+    private volatile Resolved resolved;
+
+    /**
+     * Resolved bundle together with its locale, replaced as a whole
+     */
+    private static class Resolved
+    {
+        private final Locale LOCALE;
+        private final ResourceBundle BUNDLE;
+
+        Resolved(Locale locale, ResourceBundle bundle)
+        {
+            this.LOCALE = locale;
+            this.BUNDLE = bundle;
+        }
+    }
+
+    private Messages(String baseName)
+    {
+        this.BASE_NAME = baseName;
+    }
+
+    /**
+     * Returns the bundle for the default locale
+     *
+     * @return The resolved bundle
+     */
+    public ResourceBundle getBundle()
+    {
+        Locale locale = Locale.getDefault();
+        Resolved current = resolved;
+        if (current == null || !current.LOCALE.equals(locale))
+        {
+            current = new Resolved(locale, ResourceBundle.getBundle(BASE_NAME,
+                    locale, Messages.class.getClassLoader()));
+            resolved = current;
+        }
+        return current.BUNDLE;
+    }
+
+    /**
+     * Returns a text
+     *
+     * @param key Key of the text
+     * @return The text in the default locale
+     */
+    public String getString(String key)
+    {
+        return getBundle().getString(key);
+    }
+
+    /**
+     * Returns a text with its placeholders replaced
+     *
+     * @param key Key of a text in MessageFormat syntax
+     * @param arguments Values of the placeholders
+     * @return The formatted text in the default locale
+     */
+    public String format(String key, Object... arguments)
+    {
+        return MessageFormat.format(getString(key), arguments);
+    }
+}
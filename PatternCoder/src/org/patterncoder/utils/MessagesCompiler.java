@@ -0,0 +1,181 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Translates the properties files of the resource bundles into Java sources
+ * of ListResourceBundle classes.<br>
+ * Usage: java org.patterncoder.utils.MessagesCompiler &lt;source folder&gt;
+ * &lt;target folder&gt;<br>
+ * Every file Bundle*.properties below the source folder becomes a class of
+ * the same name and package in the target folder. The build compiles the
+ * generated sources together with the application; ResourceBundle prefers
+ * the classes to the properties files, so no properties file is parsed at
+ * runtime. The sources have to be generated again whenever a properties file
+ * changes.
+ */
+public class MessagesCompiler
+{
+    private static final String PREFIX = "Bundle";
+    private static final String EXTENSION = ".properties";
+
+    private MessagesCompiler()
+    {
+    }
+
+    /**
+     * Generates the sources of all bundles below a folder
+     *
+     * @param sourceDir Source folder, root of the packages
+     * @param targetDir Folder of the generated sources
+     * @return Number of generated sources
+     * @throws IOException If a file cannot be read or written
+     */
+    public static int compile(File sourceDir, File targetDir)
+            throws IOException
+    {
+        return compile(sourceDir, "", targetDir);
+    }
+
+    private static int compile(File dir, String packageName, File targetDir)
+            throws IOException
+    {
+        int result = 0;
+        File[] files = dir.listFiles();
+        if (files == null)
+        {
+            return 0;
+        }
+        for (File file : files)
+        {
+            String name = file.getName();
+            if (file.isDirectory())
+            {
+                result += compile(file, packageName.isEmpty() ? name
+                        : packageName + "." + name, new File(targetDir, name));
+            }
+            else if (name.startsWith(PREFIX) && name.endsWith(EXTENSION))
+            {
+                writeClass(file, packageName, name.substring(0, name.length()
+                        - EXTENSION.length()), targetDir);
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private static void writeClass(File propertiesFile, String packageName,
+            String className, File targetDir) throws IOException
+    {
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(propertiesFile);
+        try
+        {
+            properties.load(in);
+        }
+        finally
+        {
+            in.close();
+        }
+        if (!targetDir.isDirectory() && !targetDir.mkdirs())
+        {
+            throw new IOException("Cannot create " + targetDir);
+        }
+        Writer out = new OutputStreamWriter(new FileOutputStream(new File(
+                targetDir, className + ".java")), "US-ASCII");
+        try
+        {
+            out.write("// Generated by " + MessagesCompiler.class.getName()
+                    + " from " + propertiesFile.getName() + "; do not edit\n");
+            if (!packageName.isEmpty())
+            {
+                out.write("package " + packageName + ";\n");
+            }
+            out.write("\npublic class " + className
+                    + " extends java.util.ListResourceBundle\n{\n");
+            out.write("    private static final Object[][] CONTENTS =\n    {\n");
+            for (String key : new TreeSet<String>(properties.stringPropertyNames()))
+            {
+                out.write("        {\n            " + quote(key) + ",\n            "
+                        + quote(properties.getProperty(key)) + "\n        },\n");
+            }
+            out.write("    };\n\n    @Override\n"
+                    + "    protected Object[][] getContents()\n    {\n"
+                    + "        return CONTENTS;\n    }\n}\n");
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Returns a string literal; all characters outside of printable ASCII are
+     * escaped
+     */
+    private static String quote(String value)
+    {
+        StringBuilder result = new StringBuilder(value.length() + 2);
+        result.append('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+            {
+                result.append('\\').append(c);
+            }
+            else if (c >= 0x20 && c < 0x7F)
+            {
+                result.append(c);
+            }
+            else if (c < 0x20)
+            {
+                // a unicode escape of a line break would end the literal
+                result.append(String.format("\\%03o", (int) c));
+            }
+            else
+            {
+                result.append(String.format("\\u%04x", (int) c));
+            }
+        }
+        return result.append('"').toString();
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2)
+        {
+            System.err.println("Usage: java " + MessagesCompiler.class.getName()
+                    + " <source folder> <target folder>");
+            System.exit(1);
+        }
+        int count = compile(new File(args[0]), new File(args[1]));
+        System.out.println(count + " bundles compiled");
+    }
+}
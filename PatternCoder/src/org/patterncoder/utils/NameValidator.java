@@ -0,0 +1,192 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.utils;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks class names before sources are generated.<br>
+ * A name must be a Java identifier that is not a keyword, a literal or a
+ * restricted type name. All names of one generation are checked together:
+ * two components must not share a name, and no name may belong to a source
+ * file that already exists in the target directory. Names that differ only
+ * in case count as equal, because they map to the same file on some file
+ * systems. Characters are classified by tables built once, so the check is
+ * cheap enough to run on every keystroke.
+ */
+public final class NameValidator
+{
+    /**
+     * Reasons a name is rejected; the message of each is the text NAME_ plus
+     * the name of the constant in the data model bundle
+     */
+    public enum Problem
+    {
+        EMPTY, INVALID_START, INVALID_CHARACTER, KEYWORD, DUPLICATE,
+        FILE_EXISTS;
+
+        /**
+         * Returns the message describing this problem
+         *
+         * @param name The rejected name
+         * @return The message in the default locale
+         */
+        public String getMessage(String name)
+        {
+            return Messages.DATA_MODEL.format("NAME_" + name(), name);
+        }
+    }
+    private static final String SUFFIX = ".java";
+    private static final boolean[] ASCII_START = new boolean[128];
+    private static final boolean[] ASCII_PART = new boolean[128];
+    /**
+     * Words that cannot name a class
+     */
+    private static final Set<String> KEYWORDS = new HashSet<String>(Arrays.asList(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch",
+            "char", "class", "const", "continue", "default", "do", "double",
+            "else", "enum", "extends", "final", "finally", "float", "for",
+            "goto", "if", "implements", "import", "instanceof", "int",
+            "interface", "long", "native", "new", "package", "private",
+            "protected", "public", "return", "short", "static", "strictfp",
+            "super", "switch", "synchronized", "this", "throw", "throws",
+            "transient", "try", "void", "volatile", "while", "true", "false",
+            "null", "_", "var", "yield", "record", "sealed", "permits"));
+
+    static
+    {
+        for (char c = 0; c < 128; c++)
+        {
+            ASCII_START[c] = Character.isJavaIdentifierStart(c);
+            ASCII_PART[c] = Character.isJavaIdentifierPart(c)
+                    && !Character.isIdentifierIgnorable(c);
+        }
+    }
+
+    private NameValidator()
+    {
+    }
+
+    /**
+     * Checks a single name, without regard to other names or files
+     *
+     * @param name Name of a class
+     * @return The problem of the name, or null if the name is valid
+     */
+    public static Problem check(String name)
+    {
+        if (name == null || name.isEmpty())
+        {
+            return Problem.EMPTY;
+        }
+        int codePoint = name.codePointAt(0);
+        if (!(codePoint < 128 ? ASCII_START[codePoint]
+                : Character.isJavaIdentifierStart(codePoint)))
+        {
+            return Problem.INVALID_START;
+        }
+        for (int i = Character.charCount(codePoint); i < name.length();
+                i += Character.charCount(codePoint))
+        {
+            codePoint = name.codePointAt(i);
+            if (!(codePoint < 128 ? ASCII_PART[codePoint]
+                    : Character.isJavaIdentifierPart(codePoint)
+                    && !Character.isIdentifierIgnorable(codePoint)))
+            {
+                return Problem.INVALID_CHARACTER;
+            }
+        }
+        return KEYWORDS.contains(name) ? Problem.KEYWORD : null;
+    }
+
+    /**
+     * Checks all names of a generation
+     *
+     * @param names Class names; null entries count as empty
+     * @param targetDir Directory the sources are written to, or null to skip
+     * the check for existing files
+     * @return The problem of each name at the same index, null for valid names
+     */
+    public static Problem[] validate(String[] names, File targetDir)
+    {
+        return validate(names, listTypeNames(targetDir));
+    }
+
+    /**
+     * Checks all names of a generation against a known set of existing types
+     *
+     * @param names Class names; null entries count as empty
+     * @param existingTypes Names of the existing types in lower case
+     * @return The problem of each name at the same index, null for valid names
+     */
+    public static Problem[] validate(String[] names, Set<String> existingTypes)
+    {
+        Problem[] result = new Problem[names.length];
+        Map<String, Integer> firstIndex = new HashMap<String, Integer>(
+                names.length * 2);
+        for (int i = 0; i < names.length; i++)
+        {
+            result[i] = check(names[i]);
+            if (result[i] != null)
+            {
+                continue;
+            }
+            String key = names[i].toLowerCase(Locale.ROOT);
+            Integer first = firstIndex.put(key, i);
+            if (first != null)
+            {
+                // all components sharing the name are marked
+                result[i] = Problem.DUPLICATE;
+                result[first] = Problem.DUPLICATE;
+            }
+            else if (existingTypes.contains(key))
+            {
+                result[i] = Problem.FILE_EXISTS;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the names of the sources in a directory in lower case
+     */
+    private static Set<String> listTypeNames(File dir)
+    {
+        Set<String> result = new HashSet<String>();
+        String[] files = dir == null ? null : dir.list();
+        if (files != null)
+        {
+            for (String file : files)
+            {
+                if (file.endsWith(SUFFIX))
+                {
+                    result.add(file.substring(0, file.length()
+                            - SUFFIX.length()).toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return result;
+    }
+}
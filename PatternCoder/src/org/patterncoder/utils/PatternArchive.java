@@ -0,0 +1,235 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Read access to one archive of the pattern library.<br>
+ * The number of archives open at the same time is limited by the system
+ * property "patterncoder.maxOpenArchives" (default 4); {@link #open(File)}
+ * blocks until an archive is closed. Every archive must be closed with
+ * {@link #close()}. If the system property "debug" is set, the place where
+ * each archive was opened is remembered and archives that are still open can
+ * be reported with {@link #reportLeaks(Diagnostics)}.
+ */
+public final class PatternArchive implements Closeable
+{
+    /**
+     * Filename extension of pattern archives
+     */
+    public static final String EXTENSION = "zip";
+    /**
+     * Maximum number of archives open at the same time
+     */
+    private static final int MAX_OPEN = Math.max(1, Integer.getInteger(
+            "patterncoder.maxOpenArchives", 4));
+    private static final boolean DEBUG = System.getProperty("debug") != null;
+    private static final Semaphore PERMITS = new Semaphore(MAX_OPEN, true);
+    /**
+     * Open archives and where they were opened; only filled in debug mode
+     */
+    private static final Map<PatternArchive, Throwable> OPEN_ARCHIVES =
+            new IdentityHashMap<PatternArchive, Throwable>();
+    private final File file;
+    private final ZipFile zipFile;
+    private boolean closed = false;
+
+    private PatternArchive(File file, ZipFile zipFile)
+    {
+        this.file = file;
+        this.zipFile = zipFile;
+        if (DEBUG)
+        {
+            synchronized (OPEN_ARCHIVES)
+            {
+                OPEN_ARCHIVES.put(this, new Throwable("Opened " + file));
+            }
+        }
+    }
+
+    /**
+     * Lists all pattern archives of a directory
+     *
+     * @param dir Directory to list
+     * @return All files with the archive extension, never null
+     */
+    public static File[] list(File dir)
+    {
+        File[] result = dir.listFiles(new FileFilter(EXTENSION));
+        return result == null ? new File[0] : result;
+    }
+
+    /**
+     * Opens an archive; waits if the maximum number of archives is already
+     * open
+     *
+     * @param file Archive to open
+     * @return The opened archive
+     * @throws IOException If the file is not a readable zip archive
+     */
+    public static PatternArchive open(File file) throws IOException
+    {
+        PERMITS.acquireUninterruptibly();
+        boolean opened = false;
+        try
+        {
+            PatternArchive result = new PatternArchive(file, new ZipFile(file));
+            opened = true;
+            return result;
+        }
+        finally
+        {
+            if (!opened)
+            {
+                PERMITS.release();
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the archive file
+     *
+     * @return Name of the file
+     */
+    public String getName()
+    {
+        return file.getName();
+    }
+
+    /**
+     * Returns all entries of the archive that are not directories
+     *
+     * @return Entries of the archive
+     */
+    public List<ZipEntry> getEntries()
+    {
+        List<ZipEntry> result = new ArrayList<ZipEntry>();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements())
+        {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory())
+            {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the complete content of an entry; the stream of the entry is
+     * closed afterwards
+     *
+     * @param entry Entry to read
+     * @return Content of the entry
+     * @throws IOException
+     */
+    public byte[] read(ZipEntry entry) throws IOException
+    {
+        long size = entry.getSize();
+        ByteArrayOutputStream content = new ByteArrayOutputStream(
+                size > 0 && size < Integer.MAX_VALUE ? (int) size : 1024);
+        InputStream inputStream = zipFile.getInputStream(entry);
+        try
+        {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1)
+            {
+                content.write(buffer, 0, read);
+            }
+        }
+        finally
+        {
+            inputStream.close();
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * Closes the archive and allows the next archive to be opened. Further
+     * calls have no effect.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException
+    {
+        synchronized (this)
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+        }
+        if (DEBUG)
+        {
+            synchronized (OPEN_ARCHIVES)
+            {
+                OPEN_ARCHIVES.remove(this);
+            }
+        }
+        try
+        {
+            zipFile.close();
+        }
+        finally
+        {
+            PERMITS.release();
+        }
+    }
+
+    /**
+     * Records every archive that is still open as a warning, together with
+     * the place where it was opened. Does nothing unless the system property
+     * "debug" is set.
+     *
+     * @param diagnostics Collector for the leaked archives
+     */
+    public static void reportLeaks(Diagnostics diagnostics)
+    {
+        if (!DEBUG)
+        {
+            return;
+        }
+        synchronized (OPEN_ARCHIVES)
+        {
+            for (Map.Entry<PatternArchive, Throwable> leak : OPEN_ARCHIVES.entrySet())
+            {
+                diagnostics.add(Diagnostics.Severity.WARNING,
+                        leak.getKey().getName(), "", "Archive not closed",
+                        leak.getValue());
+            }
+        }
+    }
+}
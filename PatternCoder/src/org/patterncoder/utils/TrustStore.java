@@ -0,0 +1,220 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+/**
+ * Remembers the digests of pattern descriptions that have been validated
+ * against the schema without errors, so they can be parsed without validation
+ * on later loads.<br>
+ * The digests are stored in the file .patterncoder/validated.properties in the
+ * home directory of the user. Each digest covers the schema and the content of
+ * the description, so a changed description or a new schema is validated
+ * again. If the system property "patterncoder.strictValidation" is set, every
+ * description is validated.
+ */
+public class TrustStore
+{
+    private static final String STORE_DIR = ".patterncoder";
+    private static final String STORE_NAME = "validated.properties";
+    private static final String SCHEMA = "/org/patterncoder/resources/patternschema.xsd";
+    private static final String TRUSTED = "valid";
+    private static TrustStore instance;
+    private final File file;
+    private final Properties digests = new Properties();
+    private final byte[] schemaDigest;
+    private boolean dirty = false;
+
+    private TrustStore(File file)
+    {
+        this.file = file;
+        this.schemaDigest = readSchemaDigest();
+        if (file.isFile())
+        {
+            try
+            {
+                InputStream in = new FileInputStream(file);
+                try
+                {
+                    digests.load(in);
+                }
+                finally
+                {
+                    in.close();
+                }
+            }
+            catch (IOException ex)
+            {
+                // start with an empty store
+                digests.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the trust store of the current user
+     *
+     * @return The trust store
+     */
+    public static synchronized TrustStore getInstance()
+    {
+        if (instance == null)
+        {
+            instance = new TrustStore(new File(new File(System.getProperty(
+                    "user.home"), STORE_DIR), STORE_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * Checks if every pattern description has to be validated
+     *
+     * @return true if the system property "patterncoder.strictValidation" is
+     * set
+     */
+    public static boolean isStrict()
+    {
+        return System.getProperty("patterncoder.strictValidation") != null;
+    }
+
+    /**
+     * Computes the digest of a pattern description together with the schema
+     *
+     * @param content The pattern description
+     * @return Digest as hex string
+     */
+    public String digest(byte[] content)
+    {
+        MessageDigest messageDigest = newDigest();
+        messageDigest.update(schemaDigest);
+        byte[] hash = messageDigest.digest(content);
+        StringBuilder result = new StringBuilder(hash.length * 2);
+        for (byte b : hash)
+        {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16));
+            result.append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Checks if a description with the given digest was validated before
+     *
+     * @param digest Digest of the description
+     * @return true if the description is known to be valid
+     */
+    public synchronized boolean isTrusted(String digest)
+    {
+        return TRUSTED.equals(digests.getProperty(digest));
+    }
+
+    /**
+     * Records that a description with the given digest is valid
+     *
+     * @param digest Digest of the description
+     */
+    public synchronized void trust(String digest)
+    {
+        if (digests.setProperty(digest, TRUSTED) == null)
+        {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Writes the store to disk if digests have been added
+     *
+     * @throws IOException If the store cannot be written
+     */
+    public synchronized void save() throws IOException
+    {
+        if (!dirty)
+        {
+            return;
+        }
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs())
+        {
+            throw new IOException("Cannot create " + dir);
+        }
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            digests.store(out, "Pattern descriptions validated by patternCoder");
+        }
+        finally
+        {
+            out.close();
+        }
+        dirty = false;
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static byte[] readSchemaDigest()
+    {
+        MessageDigest messageDigest = newDigest();
+        InputStream in = TrustStore.class.getResourceAsStream(SCHEMA);
+        // without a schema no description can be validated and trusted
+        if (in != null)
+        {
+            try
+            {
+                try
+                {
+                    byte[] buffer = new byte[4096];
+                    int read;
+                    while ((read = in.read(buffer)) != -1)
+                    {
+                        messageDigest.update(buffer, 0, read);
+                    }
+                }
+                finally
+                {
+                    in.close();
+                }
+            }
+            catch (IOException ex)
+            {
+                messageDigest.reset();
+            }
+        }
+        return messageDigest.digest();
+    }
+}
@@ -0,0 +1,457 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+
+ This file is part of the patternCoder application
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License along
+ with this program; if not, write to the Free Software Foundation, Inc.,
+ 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Names of the Java sources in a project, by directory.<br>
+ * The index is built once in the background: the directories of each level
+ * of the tree are listed in parallel. Afterwards a daemon timer compares the
+ * modification times of the indexed directories every few seconds (system
+ * property "patterncoder.indexInterval", default {@link #DEFAULT_INTERVAL}
+ * ms) and lists again only the directories that have changed. Name lookups
+ * therefore do not touch the file system once the index is ready. Names are
+ * kept in lower case, as sources that differ only in case clash on some file
+ * systems.<br>
+ * Only one project is indexed at a time: indexing another project or closing
+ * the project stops the index. Hidden directories and symbolic links are not
+ * followed, and at most {@link #MAX_DIRECTORIES} directories up to a depth of
+ * {@link #MAX_DEPTH} are indexed; other directories are listed when they are
+ * looked up.
+ */
+public final class TypeNameIndex
+{
+    /**
+     * Default interval of the watch in milliseconds
+     */
+    public static final long DEFAULT_INTERVAL = 2000;
+    /**
+     * Maximum depth of an indexed directory below the root
+     */
+    public static final int MAX_DEPTH = 32;
+    /**
+     * Maximum number of indexed directories
+     */
+    public static final int MAX_DIRECTORIES = 4096;
+    private static final String SUFFIX = ".java";
+    private static final Timer WATCH = new Timer("PatternCoder type index", true);
+    private static final ThreadFactory THREADS = new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(Runnable r)
+        {
+            Thread thread = new Thread(r, "PatternCoder type index");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    };
+    /**
+     * Index of the current project; guarded by TypeNameIndex.class
+     */
+    private static TypeNameIndex current = null;
+    private final File ROOT;
+    /**
+     * Listed directories by canonical path; guarded by this
+     */
+    private final Map<File, Directory> directories = new HashMap<File, Directory>();
+    private final TimerTask WATCH_TASK;
+    private volatile boolean ready = false;
+    private volatile boolean stopped = false;
+
+    /**
+     * Contents of one directory when it was listed
+     */
+    private static class Directory
+    {
+        private final int DEPTH;
+        private final long LAST_MODIFIED;
+        private final Set<String> TYPE_NAMES;
+        private final List<File> SUBDIRECTORIES;
+
+        Directory(int depth, long lastModified, Set<String> typeNames,
+                List<File> subdirectories)
+        {
+            this.DEPTH = depth;
+            this.LAST_MODIFIED = lastModified;
+            this.TYPE_NAMES = typeNames;
+            this.SUBDIRECTORIES = subdirectories;
+        }
+    }
+
+    private TypeNameIndex(File root)
+    {
+        this.ROOT = root;
+        this.WATCH_TASK = new TimerTask()
+        {
+            @Override
+            public void run()
+            {
+                if (ready)
+                {
+                    refresh();
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the index of a project, starting to build it if the project is
+     * not indexed yet. The index of any other project is stopped.
+     *
+     * @param root Root directory of the project
+     * @return The index, which may not be ready yet
+     */
+    public static synchronized TypeNameIndex forRoot(File root)
+    {
+        File key = canonical(root);
+        if (current != null && current.ROOT.equals(key))
+        {
+            return current;
+        }
+        if (current != null)
+        {
+            current.stop();
+        }
+        current = new TypeNameIndex(key);
+        current.start();
+        return current;
+    }
+
+    /**
+     * Returns the index of a project if it is indexed
+     *
+     * @param root Root directory of the project
+     * @return The index or null
+     */
+    public static synchronized TypeNameIndex get(File root)
+    {
+        if (root != null && current != null && current.ROOT.equals(canonical(root)))
+        {
+            return current;
+        }
+        return null;
+    }
+
+    /**
+     * Stops the index of a project, e.g. when the project is closed
+     *
+     * @param root Root directory of the project
+     */
+    public static synchronized void close(File root)
+    {
+        if (root != null && current != null && current.ROOT.equals(canonical(root)))
+        {
+            current.stop();
+            current = null;
+        }
+    }
+
+    /**
+     * Returns true once the project has been listed
+     *
+     * @return true if lookups no longer access the file system
+     */
+    public boolean isReady()
+    {
+        return ready;
+    }
+
+    /**
+     * Returns the names of the sources in a directory of the project; a
+     * directory that has not been indexed is listed now
+     *
+     * @param dir Directory
+     * @return Names in lower case without the suffix .java; not modifiable
+     */
+    public Set<String> getTypeNames(File dir)
+    {
+        synchronized (this)
+        {
+            Directory directory = directories.get(dir.getAbsoluteFile());
+            if (directory != null)
+            {
+                return directory.TYPE_NAMES;
+            }
+        }
+        File key = canonical(dir);
+        synchronized (this)
+        {
+            Directory directory = directories.get(key);
+            if (directory != null)
+            {
+                return directory.TYPE_NAMES;
+            }
+        }
+        Directory directory = list(key, MAX_DEPTH);
+        synchronized (this)
+        {
+            directories.put(key, directory);
+        }
+        return directory.TYPE_NAMES;
+    }
+
+    /**
+     * Adds sources that have just been written, so they are known before the
+     * watch notices them
+     *
+     * @param dir Directory of the sources
+     * @param classNames Class names of the sources
+     */
+    public void addTypeNames(File dir, String[] classNames)
+    {
+        File key = canonical(dir);
+        synchronized (this)
+        {
+            Directory directory = directories.get(key);
+            if (directory == null)
+            {
+                return;
+            }
+            Set<String> typeNames = new HashSet<String>(directory.TYPE_NAMES);
+            for (String className : classNames)
+            {
+                typeNames.add(className.toLowerCase(Locale.ROOT));
+            }
+            // the old time stamp makes the watch check the directory once more
+            directories.put(key, new Directory(directory.DEPTH,
+                    directory.LAST_MODIFIED,
+                    Collections.unmodifiableSet(typeNames),
+                    directory.SUBDIRECTORIES));
+        }
+    }
+
+    private void start()
+    {
+        THREADS.newThread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                build();
+            }
+        }).start();
+        long interval = Long.getLong("patterncoder.indexInterval",
+                DEFAULT_INTERVAL);
+        WATCH.schedule(WATCH_TASK, interval, interval);
+    }
+
+    private void stop()
+    {
+        stopped = true;
+        WATCH_TASK.cancel();
+        WATCH.purge();
+    }
+
+    /**
+     * Lists the tree level by level, the directories of a level in parallel
+     */
+    private void build()
+    {
+        ExecutorService workers = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), THREADS);
+        try
+        {
+            Set<File> known = new HashSet<File>();
+            known.add(ROOT);
+            List<File> level = Collections.singletonList(ROOT);
+            for (int depth = 0; !level.isEmpty() && !stopped; depth++)
+            {
+                final int DEPTH = depth;
+                List<Callable<Directory>> tasks = new ArrayList<Callable<Directory>>(level.size());
+                for (final File dir : level)
+                {
+                    tasks.add(new Callable<Directory>()
+                    {
+                        @Override
+                        public Directory call()
+                        {
+                            return list(dir, DEPTH);
+                        }
+                    });
+                }
+                List<Future<Directory>> results = workers.invokeAll(tasks);
+                List<File> next = new ArrayList<File>();
+                synchronized (this)
+                {
+                    for (int i = 0; i < level.size(); i++)
+                    {
+                        Directory directory = results.get(i).get();
+                        if (!directories.containsKey(level.get(i)))
+                        {
+                            directories.put(level.get(i), directory);
+                        }
+                        for (File subdirectory : directory.SUBDIRECTORIES)
+                        {
+                            if (known.size() < MAX_DIRECTORIES
+                                    && known.add(subdirectory))
+                            {
+                                next.add(subdirectory);
+                            }
+                        }
+                    }
+                }
+                level = next;
+            }
+            ready = !stopped;
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException ex)
+        {
+            Diagnostics diagnostics = new Diagnostics();
+            diagnostics.add(Diagnostics.Severity.WARNING, ROOT.getPath(), "",
+                    String.valueOf(ex.getCause()), ex.getCause());
+            diagnostics.report();
+        }
+        finally
+        {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Lists the directories that have changed since they were listed, and
+     * new subdirectories of them
+     */
+    private void refresh()
+    {
+        Map<File, Directory> snapshot;
+        synchronized (this)
+        {
+            snapshot = new HashMap<File, Directory>(directories);
+        }
+        List<File> changed = new ArrayList<File>();
+        List<File> removed = new ArrayList<File>();
+        for (Map.Entry<File, Directory> entry : snapshot.entrySet())
+        {
+            long lastModified = entry.getKey().lastModified();
+            if (lastModified == 0L)
+            {
+                removed.add(entry.getKey());
+            }
+            else if (lastModified != entry.getValue().LAST_MODIFIED)
+            {
+                changed.add(entry.getKey());
+            }
+        }
+        Set<File> known = new HashSet<File>(snapshot.keySet());
+        Map<File, Integer> depths = new HashMap<File, Integer>();
+        while (!changed.isEmpty() && !stopped)
+        {
+            File dir = changed.remove(changed.size() - 1);
+            Directory previous = snapshot.get(dir);
+            Directory directory = list(dir, previous != null ? previous.DEPTH
+                    : depths.get(dir).intValue());
+            for (File subdirectory : directory.SUBDIRECTORIES)
+            {
+                if (known.size() < MAX_DIRECTORIES && known.add(subdirectory))
+                {
+                    depths.put(subdirectory, directory.DEPTH + 1);
+                    changed.add(subdirectory);
+                }
+            }
+            synchronized (this)
+            {
+                directories.put(dir, directory);
+            }
+        }
+        synchronized (this)
+        {
+            for (File dir : removed)
+            {
+                directories.remove(dir);
+            }
+        }
+    }
+
+    /**
+     * Lists one directory. Hidden directories and symbolic links are skipped,
+     * and so are the subdirectories of a directory at the maximum depth.
+     *
+     * @param dir Canonical path of the directory
+     * @param depth Depth of the directory below the root
+     */
+    private static Directory list(File dir, int depth)
+    {
+        long lastModified = dir.lastModified();
+        Set<String> typeNames = new HashSet<String>();
+        List<File> subdirectories = new ArrayList<File>();
+        File[] files = dir.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                String name = file.getName();
+                if (name.endsWith(SUFFIX))
+                {
+                    typeNames.add(name.substring(0, name.length()
+                            - SUFFIX.length()).toLowerCase(Locale.ROOT));
+                }
+                else if (depth < MAX_DEPTH && !name.startsWith(".")
+                        && file.isDirectory() && !isLink(file))
+                {
+                    subdirectories.add(file);
+                }
+            }
+        }
+        return new Directory(depth, lastModified,
+                Collections.unmodifiableSet(typeNames), subdirectories);
+    }
+
+    /**
+     * Returns true if a file in a canonical directory is a symbolic link
+     */
+    private static boolean isLink(File file)
+    {
+        return !canonical(file).equals(file.getAbsoluteFile());
+    }
+
+    private static File canonical(File file)
+    {
+        try
+        {
+            return file.getCanonicalFile();
+        }
+        catch (IOException ex)
+        {
+            return file.getAbsoluteFile();
+        }
+    }
+}
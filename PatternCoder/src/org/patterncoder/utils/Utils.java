@@ -19,14 +19,16 @@
 package org.patterncoder.utils;
 
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.Set;
+import java.util.regex.Matcher;
 import org.patterncoder.PatternCoder;
 import org.patterncoder.dataModel.Pattern;
 import org.patterncoder.dataModel.PatternComponent;
 import org.patterncoder.system.AbstractSystem;
-import static org.patterncoder.system.AbstractSystem.SEPARATOR;
 
 /**
  * Encapsulates utils methods
@@ -35,44 +37,55 @@ import static org.patterncoder.system.AbstractSystem.SEPARATOR;
  */
 public class Utils
 {
+    /**
+     * Suffix of sources that are being generated
+     */
+    private static final String TEMP_SUFFIX = ".part";
+    /**
+     * Suffix of existing sources while they are being replaced
+     */
+    private static final String BACKUP_SUFFIX = ".orig";
+
     private Utils()
     {
     }
 
     /**
-     * Checks a source name against a list of invalid characters. Returns a
-     * boolean value indicating whether the name is valid or not.
+     * Checks a source name. Returns a boolean value indicating whether the
+     * name is valid or not.
      *
-     * @param name The name that requires a check for invalid characters
-     * @return Returns true if the name is well formated and valid. Return false
-     * if the name is invalid.
+     * @param name The name that requires a check
+     * @return Returns true if the name is a Java identifier that is not a
+     * keyword. Return false if the name is invalid.
+     * @see NameValidator
      */
     public static boolean verifyName(String name)
     {
-        char[] INVALID_CHARS =
-        {
-            '!', '"', '%', '`', ' ', '~', '#', '^', '&', '*', '(', ')', '+', '=',
-            '{', '}', '[', ']', '@', ':', ';', '?', '>', '<', '|'
-        };
-        boolean wellFormed = true;
+        return NameValidator.check(name) == null;
+    }
 
-        if (name == null || name.isEmpty())
-        {
-            wellFormed = false;
-        }
-        else
-        {
-            for (int i = 0; i < INVALID_CHARS.length; i++)
-            {
-                Character check = INVALID_CHARS[i];
-                if (name.contains(check.toString()))
-                {
-                    wellFormed = false;
-                    break;
-                }
-            }
-        }
-        return wellFormed;
+    /**
+     * Receives the progress of {@link #createFiles(Pattern, File, Progress)}; the
+     * methods are called on the generating thread
+     */
+    public interface Progress
+    {
+        /**
+         * Checks if the generation should stop
+         *
+         * @return true to stop before the next file is written or the
+         * sources are replaced
+         */
+        boolean isStopRequested();
+
+        /**
+         * Called after the source of a component has been written
+         *
+         * @param fileName Name of the source file
+         * @param count Number of files written so far
+         * @param total Number of files to write
+         */
+        void fileWritten(String fileName, int count, int total);
     }
 
     /**
@@ -83,55 +96,309 @@ public class Utils
      * and the package reloaded in order to display all associations between
      * classes.
      *
+     * Unlike the wizard, which asks before it replaces a class, this method
+     * refuses to generate a pattern whose class names are invalid or clash
+     * with sources of the project. For the project open in the IDE the check
+     * uses its {@link TypeNameIndex}, so repeated runs do not list the
+     * directory again.
+     *
      * @author Michael Nairn
-     * @throws IOException
+     * @throws IOException If a class name is invalid or exists already, or
+     * if a file cannot be written
      */
     public static void createFiles(Pattern currentPattern) throws IOException
     {
-        final String CLASS_NAME = "\\$CLASSNAME";
-        final String PACKAGE_LINE = "\\$PKGLINE";
-        final String DEPENDANT_CLASS = "\\$DEPENDANT";
-        final String AUTHOR = "(your name)";
-        final String USER_NAME = System.getProperty("user.name");
-        final PatternComponent[] ALL_COMPONENTS = currentPattern.getAllComponents();
-        final AbstractSystem SYSTEM = PatternCoder.getSystem();
-        String packageName = SYSTEM.getPackageName();
+        File projectDir = new File(AbstractSystem.getSystem().getProjectDir());
+        String[] classNames = getClassNames(currentPattern);
+        Set<String> existing = getIndexedTypeNames(projectDir);
+        NameValidator.Problem[] problems = existing == null
+                ? NameValidator.validate(classNames, projectDir)
+                : NameValidator.validate(classNames, existing);
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < problems.length; i++)
+        {
+            if (problems[i] != null)
+            {
+                message.append('\n').append(problems[i].getMessage(classNames[i]));
+            }
+        }
+        if (message.length() > 0)
+        {
+            throw new IOException("Cannot generate " + currentPattern.NAME
+                    + message);
+        }
+        createFiles(currentPattern, projectDir, null);
+    }
 
-        String packageLine = "";
-        if (packageName != null && !packageName.isEmpty())
+    /**
+     * Generates the sources of all components like
+     * {@link #createFiles(Pattern)} and reports each written file.<br>
+     * The sources are written to temporary files first, which replace the
+     * source files when all of them have been written. Existing sources are
+     * moved aside while they are replaced. If the generation is cancelled
+     * before the sources are replaced or if it fails, the temporary files are
+     * deleted, the sources already replaced are restored and the project is
+     * left unchanged.
+     *
+     * @param currentPattern The pattern to generate
+     * @param projectDir Directory of the sources; has to be determined on the
+     * event thread, since the stand-alone version asks the user for it
+     * @param progress Receiver of the progress, may be null
+     * @return true if the sources have been generated, false if the
+     * generation has been cancelled
+     * @throws IOException If a file cannot be written
+     */
+    public static boolean createFiles(Pattern currentPattern,
+            File projectDir, Progress progress) throws IOException
+    {
+        final AbstractSystem SYSTEM = AbstractSystem.getSystem();
+        // all reloads requested while the files are replaced are executed once
+        SYSTEM.beginBatch();
+        try
+        {
+            return replaceFiles(currentPattern, projectDir, progress, SYSTEM);
+        }
+        finally
         {
-            packageLine = "package " + packageName + ";";
+            SYSTEM.endBatch();
         }
+    }
 
-        String projectDir = SYSTEM.getProjectDir() + SEPARATOR;
+    /**
+     * Writes the sources and replaces the files of the project; see
+     * {@link #createFiles(Pattern, File, Progress)}
+     */
+    private static boolean replaceFiles(Pattern currentPattern,
+            File projectDir, Progress progress, AbstractSystem system)
+            throws IOException
+    {
+        final PatternComponent[] ALL_COMPONENTS = currentPattern.getAllComponents();
+        String packageLine = getPackageLine(system);
+        String[] classNames = getClassNames(currentPattern);
 
-        for (PatternComponent tempCompo : ALL_COMPONENTS)
+        File[] tempFiles = new File[ALL_COMPONENTS.length];
+        File[] targets = new File[ALL_COMPONENTS.length];
+        File[] backups = new File[ALL_COMPONENTS.length];
+        int replaced = 0;
+        boolean complete = false;
+        try
         {
-            String tempClassName = tempCompo.getClassName();
-            String filename = projectDir
-                    + tempClassName + ".java";
-
-            String template = tempCompo.getTemplate();
-            template = template.replaceAll(CLASS_NAME, tempClassName);
-            template = template.replaceAll(PACKAGE_LINE, packageLine);
-            template = template.replaceAll(AUTHOR, USER_NAME);
+            for (int i = 0; i < ALL_COMPONENTS.length; i++)
+            {
+                if (progress != null && progress.isStopRequested())
+                {
+                    return false;
+                }
+                String filename = ALL_COMPONENTS[i].getClassName() + ".java";
+                tempFiles[i] = new File(projectDir, filename + TEMP_SUFFIX);
+                writeUTF8(tempFiles[i].getPath(), render(currentPattern,
+                        ALL_COMPONENTS[i], classNames, packageLine));
+                if (progress != null)
+                {
+                    progress.fileWritten(filename, i + 1,
+                            ALL_COMPONENTS.length);
+                }
+            }
+            if (progress != null && progress.isStopRequested())
+            {
+                return false;
+            }
+            for (; replaced < ALL_COMPONENTS.length; replaced++)
+            {
+                File target = new File(projectDir,
+                        ALL_COMPONENTS[replaced].getClassName() + ".java");
+                targets[replaced] = target;
+                if (target.exists())
+                {
+                    File backup = new File(projectDir, target.getName()
+                            + BACKUP_SUFFIX);
+                    backup.delete();
+                    if (!target.renameTo(backup))
+                    {
+                        throw new IOException("Cannot replace " + target);
+                    }
+                    backups[replaced] = backup;
+                }
+                if (!tempFiles[replaced].renameTo(target))
+                {
+                    throw new IOException("Cannot replace " + target);
+                }
+            }
+            complete = true;
+            TypeNameIndex typeIndex = TypeNameIndex.get(projectDir);
+            if (typeIndex != null)
+            {
+                typeIndex.addTypeNames(projectDir, classNames);
+            }
+        }
+        catch (IOException ex)
+        {
+            String notRestored = restore(targets, backups, replaced);
+            replaced = 0;
+            if (notRestored != null)
+            {
+                throw new IOException(ex.getMessage() + "\n" + notRestored,
+                        ex);
+            }
+            throw ex;
+        }
+        finally
+        {
+            if (!complete)
+            {
+                restore(targets, backups, replaced);
+                for (File tempFile : tempFiles)
+                {
+                    if (tempFile != null)
+                    {
+                        tempFile.delete();
+                    }
+                }
+            }
+            else
+            {
+                for (File backup : backups)
+                {
+                    if (backup != null)
+                    {
+                        backup.delete();
+                    }
+                }
+            }
+        }
+        system.reload();
+        return true;
+    }
 
-            String[] deps = tempCompo.getAllDependencies();
-            for (String dep : deps)
+    /**
+     * Undoes the replacement of sources after a failed generation. A moved
+     * source that cannot be restored is kept under its temporary name.
+     *
+     * @param targets Sources of the components
+     * @param backups Moved existing sources, null where there was none; the
+     * restored ones are set to null
+     * @param replaced Number of sources that have been replaced
+     * @return Description of the sources that could not be restored or null
+     */
+    private static String restore(File[] targets, File[] backups, int replaced)
+    {
+        StringBuilder notRestored = new StringBuilder();
+        for (int i = 0; i < targets.length; i++)
+        {
+            if (i < replaced)
+            {
+                // the generated source
+                targets[i].delete();
+            }
+            if (backups[i] != null)
             {
-                String expression = DEPENDANT_CLASS + dep;
-                int componentID = Integer.parseInt(dep) - 1;
-                String classNameOfDep = currentPattern.getComponent(componentID).getClassName();
-                template = template.replaceAll(expression, classNameOfDep);
+                if (backups[i].renameTo(targets[i]))
+                {
+                    backups[i] = null;
+                }
+                else
+                {
+                    notRestored.append("Cannot restore ").append(targets[i])
+                            .append(", the original is kept as ")
+                            .append(backups[i]).append('\n');
+                }
             }
-            template = template.concat("\n\n/*\n"
-                    + " * Source file generated by patternCoder for BlueJ Version "
-                    + PatternCoder.VERSION + ".\n"
-                    + " * For more info, please visit"
-                    + PatternCoder.EXT_URL + "\n " + "*/");
-            writeUTF8(filename, template);
         }
-        SYSTEM.reload();
+        return notRestored.length() == 0 ? null : notRestored.toString();
+    }
+
+    /**
+     * Returns the names of the sources in a directory from the
+     * {@link TypeNameIndex} of the project open in the IDE
+     *
+     * @param dir Directory of the sources
+     * @return Names in lower case, or null if the directory is not the
+     * directory of the project open in the IDE
+     */
+    public static Set<String> getIndexedTypeNames(File dir)
+    {
+        File root = AbstractSystem.getSystem().getTargetDir();
+        if (root == null || !root.equals(dir))
+        {
+            return null;
+        }
+        return TypeNameIndex.forRoot(root).getTypeNames(dir);
+    }
+
+    /**
+     * Returns the package statement for generated sources
+     *
+     * @param system The runtime environment
+     * @return Package statement or an empty string for the default package
+     */
+    public static String getPackageLine(AbstractSystem system)
+    {
+        String packageName = system.getPackageName();
+        if (packageName != null && !packageName.isEmpty())
+        {
+            return "package " + packageName + ";";
+        }
+        return "";
+    }
+
+    /**
+     * Returns the current class names of all components of a pattern
+     *
+     * @param pattern The pattern
+     * @return Class names in the order of the components
+     */
+    public static String[] getClassNames(Pattern pattern)
+    {
+        PatternComponent[] allComponents = pattern.getAllComponents();
+        String[] result = new String[allComponents.length];
+        for (int i = 0; i < allComponents.length; i++)
+        {
+            result[i] = allComponents[i].getClassName();
+        }
+        return result;
+    }
+
+    /**
+     * Creates the source code of one component from its template
+     *
+     * @param pattern The pattern containing the component
+     * @param component The component to render
+     * @param classNames Class names of all components of the pattern, in the
+     * order of the components
+     * @param packageLine Package statement of the source
+     * @return Source code of the component
+     */
+    public static String render(Pattern pattern, PatternComponent component,
+            String[] classNames, String packageLine)
+    {
+        final String CLASS_NAME = "\\$CLASSNAME";
+        final String PACKAGE_LINE = "\\$PKGLINE";
+        final String DEPENDANT_CLASS = "\\$DEPENDANT";
+        final String AUTHOR = "(your name)";
+        final String USER_NAME = System.getProperty("user.name");
+
+        String tempClassName = classNames[pattern.getStepNumber(component)];
+        String template = component.getTemplate();
+        template = template.replaceAll(CLASS_NAME,
+                Matcher.quoteReplacement(tempClassName));
+        template = template.replaceAll(PACKAGE_LINE,
+                Matcher.quoteReplacement(packageLine));
+        template = template.replaceAll(AUTHOR,
+                Matcher.quoteReplacement(USER_NAME));
+
+        String[] deps = component.getAllDependencies();
+        for (String dep : deps)
+        {
+            String expression = DEPENDANT_CLASS + dep;
+            int componentID = Integer.parseInt(dep) - 1;
+            template = template.replaceAll(expression,
+                    Matcher.quoteReplacement(classNames[componentID]));
+        }
+        return template.concat("\n\n/*\n"
+                + " * Source file generated by patternCoder for BlueJ Version "
+                + PatternCoder.VERSION + ".\n"
+                + " * For more info, please visit"
+                + Messages.PATTERN_CODER.getString("EXT_URL") + "\n " + "*/");
     }
 
     /**
@@ -14,7 +14,6 @@ import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import org.patterncoder.dataModel.Pattern;
 import org.patterncoder.dataModel.PatternComponent;
-import org.patterncoder.delegate.ErrorDialog;
 import org.w3c.dom.*;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
@@ -46,25 +45,51 @@ public class XMLUtils
     private static final String STEP_COMP_ID = "compId";
     private static final String STEP_NAME = "stepName";
     private static final String STEP_DESC = "stepDesc";
+    /**
+     * Compiled schema of the pattern descriptions
+     */
+    private static Schema schema;
 
+    /**
+     * Records warnings and errors of the parser in a Diagnostics collector
+     * instead of interrupting the load
+     */
     private static class SimpleErrorHandler implements ErrorHandler
     {
+        private final Diagnostics diagnostics;
+        private final String archive;
+        private final String entry;
+        /**
+         * false after the first error
+         */
+        private boolean valid = true;
+
+        SimpleErrorHandler(Diagnostics diagnostics, String archive,
+                String entry)
+        {
+            this.diagnostics = diagnostics;
+            this.archive = archive;
+            this.entry = entry;
+        }
+
         @Override
         public void error(SAXParseException ex) throws SAXException
         {
-            //
+            valid = false;
+            diagnostics.add(Diagnostics.Severity.ERROR, archive, entry, ex);
         }
 
         @Override
         public void fatalError(SAXParseException ex) throws SAXException
         {
-            new ErrorDialog(ex.getMessage(), ex).setVisible(true);
+            valid = false;
+            diagnostics.add(Diagnostics.Severity.FATAL, archive, entry, ex);
         }
 
         @Override
         public void warning(SAXParseException ex) throws SAXException
         {
-            new ErrorDialog(ex.getMessage(), ex).setVisible(true);
+            diagnostics.add(Diagnostics.Severity.WARNING, archive, entry, ex);
         }
     }
 
@@ -169,11 +194,38 @@ public class XMLUtils
         return result;
     }
 
+    /**
+     * Returns the compiled schema; it is compiled once and shared, a Schema is
+     * thread-safe
+     *
+     * @return The compiled schema
+     * @throws SAXException Thrown if the schema cannot be compiled
+     */
+    private static synchronized Schema getSchema() throws SAXException
+    {
+        if (schema == null)
+        {
+            final String W3C_XML_SCHEMA = "http://www.w3.org/2001/XMLSchema";
+            String schemaFile = "/org/patterncoder/resources/patternschema.xsd";
+            InputStream inputStreamSchema = XMLUtils.class.getResourceAsStream(schemaFile);
+            Source source = new StreamSource(inputStreamSchema);
+            SchemaFactory schemaFactory = SchemaFactory.newInstance(W3C_XML_SCHEMA);
+            schema = schemaFactory.newSchema(source);
+        }
+        return schema;
+    }
+
     /**
      * Reads a source and validates it against the compiled schema. Exceptions
-     * are thrown if the validation is unsuccessful
+     * are thrown if the validation is unsuccessful.<br>
+     * Sources that have been validated without errors before are recorded in
+     * the {@link TrustStore} and are only parsed, unless strict validation is
+     * switched on.
      *
      * @param contentXML The data to validate
+     * @param diagnostics Collector for warnings and errors of the parser
+     * @param archive Name of the archive containing the data
+     * @param entry Name of the entry containing the data
      * @return Document containing the XML document
      * @throws SAXException Thrown if the source file cannot be validated
      * against the schema
@@ -181,24 +233,33 @@ public class XMLUtils
      * @throws IOException Thrown if the source file cannot be read or found for
      * any reason.
      */
-    public static Document readAndValidate(String contentXML)
+    public static Document readAndValidate(String contentXML,
+            Diagnostics diagnostics, String archive, String entry)
             throws SAXException, ParserConfigurationException, IOException
     {
-        final String W3C_XML_SCHEMA = "http://www.w3.org/2001/XMLSchema";
-        String schemaFile = "/org/patterncoder/resources/patternschema.xsd";
-        InputStream inputStreamSchema = XMLUtils.class.getResourceAsStream(schemaFile);
-        Source source = new StreamSource(inputStreamSchema);
-        SchemaFactory schemaFactory = SchemaFactory.newInstance(W3C_XML_SCHEMA);
-        Schema schema = schemaFactory.newSchema(source);
+        byte[] content = contentXML.getBytes();
+        TrustStore trustStore = TrustStore.getInstance();
+        String digest = trustStore.digest(content);
+        boolean validate = TrustStore.isStrict()
+                || !trustStore.isTrusted(digest);
         DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
         docBuilderFactory.setNamespaceAware(true);
-        docBuilderFactory.setSchema(schema);
-        docBuilderFactory.setValidating(true);
+        if (validate)
+        {
+            docBuilderFactory.setSchema(getSchema());
+        }
+        // the schema validates; DTD validation would only report that there
+        // is no DTD for every document
+        docBuilderFactory.setValidating(false);
         DocumentBuilder docBuilder = docBuilderFactory.newDocumentBuilder();
-        docBuilder.setErrorHandler(new SimpleErrorHandler());
-        InputStream contentStream = new ByteArrayInputStream(
-                contentXML.getBytes());
-        Document doc = docBuilder.parse(contentStream);
+        SimpleErrorHandler errorHandler = new SimpleErrorHandler(diagnostics,
+                archive, entry);
+        docBuilder.setErrorHandler(errorHandler);
+        Document doc = docBuilder.parse(new ByteArrayInputStream(content));
+        if (validate && errorHandler.valid)
+        {
+            trustStore.trust(digest);
+        }
         return doc;
     }
-}
\ No newline at end of file
+}
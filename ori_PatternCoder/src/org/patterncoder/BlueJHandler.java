@@ -22,7 +22,14 @@ import bluej.extensions.BPackage;
 import bluej.extensions.BlueJ;
 import bluej.extensions.PackageNotFoundException;
 import bluej.extensions.ProjectNotOpenException;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.Timer;
 
 /**
  * Handles the BlueJ proxy object. All classes using the proxy should register
@@ -37,12 +44,28 @@ public class BlueJHandler {
 
     private static BlueJHandler singleton = new BlueJHandler();
     public static BlueJ thisBlueJ = null;
+    /**
+     * Milliseconds without further requests before the package is reloaded.
+     */
+    private static final int RELOAD_DELAY = Integer.getInteger("patterncoder.reloadDelay", 500);
+    /**
+     * Classes to add by package; a package without classes is only reloaded.
+     */
+    private final Map<BPackage, Set<String>> pending = new LinkedHashMap<BPackage, Set<String>>();
+    private final Timer reloadTimer;
+    private int batches = 0;
 
     /**
      * Class Constructor, declared private in order to avoid multiple instances
      * being created.
      */
     private BlueJHandler() {
+        reloadTimer = new Timer(RELOAD_DELAY, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                flush();
+            }
+        });
+        reloadTimer.setRepeats(false);
     }
 
     /**
@@ -131,29 +154,100 @@ public class BlueJHandler {
         return thisBlueJ.getCurrentPackage().getName();
     }
 
-    // throws ProjectNotOpenException, PackageNotFoundException, MissingJavaFileException
     /**
      * Adds a class to the current BlueJ project/package.
+     * <p>
+     * The class is added together with all other requests when the package is
+     * reloaded next, see {@link #reload()}.
      *
      * @param className the name of the class to add.
      */
     public void addClass(String className) {
-        try {
-            thisBlueJ.getCurrentPackage().newClass(className);
-        } catch (Exception e) {
-            System.out.println(e);
+        BPackage pkg = getCurrentPackage();
+        synchronized (this) {
+            request(pkg).add(className);
+            schedule();
         }
     }
 
-    //throws ProjectNotOpenException,PackageNotFoundException  
     /**
      * Reloads the current BlueJ package.
+     * <p>
+     * Every reload makes BlueJ scan and compile the package again, so requests
+     * are collected until none has arrived for RELOAD_DELAY milliseconds, or
+     * until the outermost batch has ended. Each package then gets its new
+     * classes and a single reload on the event thread.
      */
     public void reload() {
-        try {
-            thisBlueJ.getCurrentPackage().reload();
-        } catch (Exception e) {
-            System.out.println(e);
+        BPackage pkg = getCurrentPackage();
+        synchronized (this) {
+            request(pkg);
+            schedule();
+        }
+    }
+
+    /**
+     * Holds all class additions and reloads until the matching call of
+     * endBatch. Batches may be nested.
+     */
+    public synchronized void beginBatch() {
+        batches++;
+        reloadTimer.stop();
+    }
+
+    /**
+     * Ends a batch; when the outermost batch ends, the collected requests are
+     * passed to BlueJ without further delay.
+     */
+    public synchronized void endBatch() {
+        if (batches > 0 && --batches == 0 && !pending.isEmpty()) {
+            reloadTimer.setInitialDelay(0);
+            reloadTimer.restart();
+        }
+    }
+
+    private Set<String> request(BPackage pkg) {
+        Set<String> classNames = pending.get(pkg);
+        if (classNames == null) {
+            classNames = new LinkedHashSet<String>();
+            pending.put(pkg, classNames);
+        }
+        return classNames;
+    }
+
+    private void schedule() {
+        if (batches == 0) {
+            reloadTimer.setInitialDelay(RELOAD_DELAY);
+            reloadTimer.restart();
+        }
+    }
+
+    /**
+     * Passes all collected requests to BlueJ; called on the event thread.
+     */
+    private void flush() {
+        Map<BPackage, Set<String>> requests;
+        synchronized (this) {
+            if (batches > 0) {
+                return;
+            }
+            requests = new LinkedHashMap<BPackage, Set<String>>(pending);
+            pending.clear();
+        }
+        for (Map.Entry<BPackage, Set<String>> entry : requests.entrySet()) {
+            BPackage pkg = entry.getKey();
+            for (String className : entry.getValue()) {
+                try {
+                    pkg.newClass(className);
+                } catch (Exception e) {
+                    System.out.println(e);
+                }
+            }
+            try {
+                pkg.reload();
+            } catch (Exception e) {
+                System.out.println(e);
+            }
         }
     }
 }
@@ -0,0 +1,241 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+ 
+    This file is part of the patternCoder application
+ 
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.patterncoder;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+/**
+ * Decodes and scales the pattern diagrams for all PatternImage panels.
+ * <p>
+ * Each image file is decoded once and kept until its modification time changes, and each size
+ * an image is requested in is scaled once. Decoding and scaling run on a background thread;
+ * the result is handed to the requesting listeners on the event dispatch thread. Panels that
+ * request the same image in the same size share a single decode and scale.
+ */
+public class ImageCache {
+    
+    /** Number of decoded images kept */
+    private static final int MAX_IMAGES = 16;
+    /** Number of scaled sizes kept per image */
+    private static final int MAX_SIZES = 4;
+    
+    private static final ImageCache singleton = new ImageCache();
+    
+    /* The following fields are guarded by this object */
+    private final Map<String,CachedImage> images = new LinkedHashMap<String,CachedImage>(16, 0.75f, true){
+        protected boolean removeEldestEntry(Map.Entry<String,CachedImage> eldest){
+            return size() > MAX_IMAGES;
+        }
+    };
+    private final Map<String,List<Listener>> pending = new HashMap<String,List<Listener>>();
+    
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(new ThreadFactory(){
+        public Thread newThread(Runnable r){
+            Thread thread = new Thread(r, "PatternCoder image loader");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+    
+    /**
+     * Receives an image requested from the cache.
+     */
+    public interface Listener {
+        
+        /**
+         * Called on the event dispatch thread once the image has been decoded and scaled.
+         * @param path the path of the image file.
+         * @param width the requested width.
+         * @param height the requested height.
+         * @param image the scaled image, or null if the file does not exist or cannot be read.
+         */
+        public void imageReady(String path, int width, int height, Image image);
+    }
+    
+    private ImageCache(){
+    }
+    
+    /**
+     * Returns the cache shared by all panels.
+     * @return the single instance of ImageCache.
+     */
+    public static ImageCache getInstance(){
+        return singleton;
+    }
+    
+    /**
+     * Requests an image scaled to a size. If the image is available in that size, the listener
+     * is not called and the image is returned; otherwise null is returned and the listener
+     * receives the image later.
+     * @param path fully qualified path to the image file.
+     * @param width the desired width of the image.
+     * @param height the desired height of the image.
+     * @param listener receives the image if it is not available yet.
+     * @return the scaled image, or null if it is loaded in the background.
+     */
+    public Image getImage(final String path, final int width, final int height, Listener listener){
+        final File file = new File(path);
+        final long lastModified = file.lastModified();
+        final String key = path + "@" + width + "x" + height;
+        synchronized(this){
+            CachedImage cached = images.get(path);
+            if(cached != null && cached.lastModified == lastModified){
+                BufferedImage scaled = cached.sizes.get(width + "x" + height);
+                if(scaled != null){
+                    return scaled;
+                }
+            }
+            List<Listener> listeners = pending.get(key);
+            if(listeners != null){
+                listeners.add(listener);
+                return null;
+            }
+            listeners = new ArrayList<Listener>();
+            listeners.add(listener);
+            pending.put(key, listeners);
+        }
+        worker.execute(new Runnable(){
+            public void run(){
+                final BufferedImage scaled = load(file, path, lastModified, width, height);
+                final List<Listener> listeners;
+                synchronized(ImageCache.this){
+                    listeners = pending.remove(key);
+                }
+                SwingUtilities.invokeLater(new Runnable(){
+                    public void run(){
+                        for(Listener listener : listeners){
+                            listener.imageReady(path, width, height, scaled);
+                        }
+                    }
+                });
+            }
+        });
+        return null;
+    }
+    
+    /**
+     * Removes all images from the cache.
+     */
+    public synchronized void clear(){
+        images.clear();
+    }
+    
+    /**
+     * Decodes an image if it is not cached, and scales it. Runs on the worker thread.
+     */
+    private BufferedImage load(File file, String path, long lastModified, int width, int height){
+        CachedImage cached;
+        synchronized(this){
+            cached = images.get(path);
+        }
+        if(cached == null || cached.lastModified != lastModified){
+            BufferedImage decoded = null;
+            try{
+                if(file.exists() && file.canRead()){
+                    decoded = ImageIO.read(file);
+                }
+            }catch(IOException ioe){
+                ErrorHandler.logErrorMsg("Could not read image " + path + ": " + ioe.getMessage());
+            }
+            if(decoded == null){
+                synchronized(this){
+                    images.remove(path);
+                }
+                return null;
+            }
+            cached = new CachedImage(lastModified, decoded);
+            synchronized(this){
+                images.put(path, cached);
+            }
+        }
+        String size = width + "x" + height;
+        BufferedImage scaled;
+        synchronized(this){
+            scaled = cached.sizes.get(size);
+        }
+        if(scaled == null){
+            scaled = scale(cached.image, width, height);
+            synchronized(this){
+                cached.sizes.put(size, scaled);
+            }
+        }
+        return scaled;
+    }
+    
+    /**
+     * Scales an image in steps of at most half its size with bicubic interpolation, which is
+     * close to the quality of Image.SCALE_SMOOTH at a fraction of its cost.
+     */
+    private static BufferedImage scale(BufferedImage image, int width, int height){
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do{
+            w = w > width ? Math.max(width, w / 2) : width;
+            h = h > height ? Math.max(height, h / 2) : height;
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            try{
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            }finally{
+                g.dispose();
+            }
+            current = next;
+        }while(w != width || h != height);
+        return current;
+    }
+    
+    /**
+     * A decoded image with the modification time of its file and the sizes it has been scaled to.
+     */
+    private static class CachedImage {
+        
+        private final long lastModified;
+        private final BufferedImage image;
+        private final Map<String,BufferedImage> sizes = new LinkedHashMap<String,BufferedImage>(8, 0.75f, true){
+            protected boolean removeEldestEntry(Map.Entry<String,BufferedImage> eldest){
+                return size() > MAX_SIZES;
+            }
+        };
+        
+        CachedImage(long lastModified, BufferedImage image){
+            this.lastModified = lastModified;
+            this.image = image;
+        }
+    }
+}
@@ -27,8 +27,6 @@ import javax.swing.JPanel;
 //import bluej.extensions.*;
 import java.awt.CardLayout;
 import java.awt.Toolkit;
-import java.util.Observer;
-import java.util.Observable;
 import org.xml.sax.SAXException;
 
 import java.util.*;
@@ -37,6 +35,9 @@ import javax.swing.ImageIcon;
 
 import org.patterncoder.source.PatternFileReaderDom;
 import org.patterncoder.source.PatternFileReader;
+import org.patterncoder.pattern.PatternClass;
+import org.patterncoder.pattern.PatternEvent;
+import org.patterncoder.pattern.PatternListener;
 import org.patterncoder.pattern.PatternModel;
 import org.patterncoder.pattern.PatternImplementer;
 import org.patterncoder.wizard.WizardModel;
@@ -51,7 +52,7 @@ import org.patterncoder.wizard.WizardPanelDescriptor;
  *
  * @author Michael Nairn
  */
-public class PatternCoderFrame extends javax.swing.JFrame implements org.patterncoder.wizard.Wizard, Observer{
+public class PatternCoderFrame extends javax.swing.JFrame implements org.patterncoder.wizard.Wizard, PatternListener{
     
     private JPanel patChooser;
     private PatternModel model;
@@ -78,7 +79,7 @@ public class PatternCoderFrame extends javax.swing.JFrame implements org.pattern
         model = new PatternModel();//throws PatternCoderException if there was a problem creating the parser
         model.populateModel();//throws FileNotFoundException if PatternFiles were not found.
         setStaticPanels();
-        this.model.addObserver(this);
+        this.model.addPatternListener(PatternEvent.Kind.COMPONENTS_LOADED, this);
         setDynamicPanels();
     }
     
@@ -307,11 +308,10 @@ public class PatternCoderFrame extends javax.swing.JFrame implements org.pattern
    /*Methods*/
 
     /**
-     * 
-     * @param t 
-     * @param o 
+     * Rebuilds the wizard steps when the components of a newly selected pattern have been read.
+     * @param event the COMPONENTS_LOADED event
      */
-    public void update(Observable t, Object o){
+    public void patternChanged(PatternEvent event){
         setDynamicPanels();
     }
     
@@ -382,10 +382,13 @@ public class PatternCoderFrame extends javax.swing.JFrame implements org.pattern
         
         //Should clear and start again to ensure no overflow.
         
-        for(int i=0;i<displayPanel.getComponentCount();i++){
+        for(int i=displayPanel.getComponentCount()-1;i>=0;i--){
             java.awt.Component tempComp = displayPanel.getComponent(i);
             if(!tempComp.equals(chooserPanel.getPanel())){
                 displayPanel.remove(i);
+                if(tempComp instanceof PatternListener){
+                    model.removePatternListener((PatternListener)tempComp);
+                }
             }
         }
         //clears WizardModel 
@@ -440,6 +443,14 @@ public class PatternCoderFrame extends javax.swing.JFrame implements org.pattern
     public void finish(){
         try{          
             wModel.getCurrentPanelDesc().closingPanel();//throws exception
+            List<String> names = new ArrayList<String>();
+            for(PatternClass component : model.getComponents().values()){
+                names.add(component.getName());
+            }
+            String duplicate = org.patterncoder.util.NameVerifier.findDuplicate(names);
+            if(duplicate != null){
+                throw new PatternCoderException("Several classes are named " + duplicate + ".\nPlease enter a different name for each class.");
+            }
             pi = new PatternImplementer();
             pi.usePattern(model.getComponents());
             exitExtension();
@@ -32,11 +32,13 @@ import java.net.URI;
  *
  * @author Michael Nairn
  */
-public class PatternImage extends javax.swing.JPanel {
+public class PatternImage extends javax.swing.JPanel implements ImageCache.Listener {
     
     public Image img;
     private Image scaledImg;
     private String path;
+    private int requestedWidth;
+    private int requestedHeight;
     
     /** Creates a new instance of PatternImage */
     public PatternImage(){ 
@@ -62,22 +64,25 @@ public class PatternImage extends javax.swing.JPanel {
      * If image file does not exist or is unreadable, no image is displayed.
      * <p>
      * The image size is also defined by the parameters width and height.
+     * The image is taken from the ImageCache shared by all panels; if it has not been
+     * scaled to this size yet, it is shown once the cache has loaded it.
      * @param width the desired width of the image.
      * @param height the desired height of the image.
      * @param path Fully qualified path to the image resource
      */
     public void setImage(String path, int width, int height){
         this.path = path;
-        File temp = new File(path);
-        try{
-            if(temp.exists() && temp.canRead()){
-                img = ImageIO.read(temp);
-                scaledImg = img.getScaledInstance(width, height, Image.SCALE_SMOOTH);
-            }
-            else{scaledImg = null;}
-        }catch(IOException ioe){}
-        catch(Exception e){}
-        this.repaint();
+        this.requestedWidth = width;
+        this.requestedHeight = height;
+        if(path == null || width <= 0 || height <= 0){
+            return;
+        }
+        Image cached = ImageCache.getInstance().getImage(path, width, height, this);
+        if(cached != null){
+            img = cached;
+            scaledImg = cached;
+            this.repaint();
+        }
     }
     
     
@@ -91,17 +96,22 @@ public class PatternImage extends javax.swing.JPanel {
      * @param path Fully qualified path to the image resource.
      */
     public void setImage(String path){
-        this.path = path;
-        File temp = new File(path);
-        try{
-            if(temp.exists() && temp.canRead()){
-                img = ImageIO.read(temp);
-                scaledImg = img.getScaledInstance(getPanelWidth(), getPanelHeight(), Image.SCALE_SMOOTH);
-            }
-            else{scaledImg = null;}
-        }catch(IOException ioe){}
-        catch(Exception e){}
-        this.repaint();
+        setImage(path, getPanelWidth(), getPanelHeight());
+    }
+    
+    /**
+     * Shows an image loaded by the ImageCache, unless another image has been requested since.
+     * @param path the path of the image file.
+     * @param width the requested width.
+     * @param height the requested height.
+     * @param image the scaled image, or null if the file could not be read.
+     */
+    public void imageReady(String path, int width, int height, Image image){
+        if(path.equals(this.path) && width == requestedWidth && height == requestedHeight){
+            img = image;
+            scaledImg = image;
+            this.repaint();
+        }
     }
     
     /**
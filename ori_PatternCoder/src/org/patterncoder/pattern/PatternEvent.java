@@ -0,0 +1,115 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+ 
+    This file is part of the patternCoder application
+ 
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.pattern;
+
+import java.util.HashMap;
+
+/**
+ * Describes a change of the PatternModel, together with the data that has changed.
+ * <p>
+ * Listeners subscribe to the kinds of event they need with PatternModel.addPatternListener, and
+ * take the new data from the event rather than from the model.
+ */
+public class PatternEvent {
+    
+    /**
+     * The kinds of change.
+     */
+    public enum Kind {
+        /** Another pattern has been selected; carries its name, index and description. */
+        PATTERN_SELECTED,
+        /** The components of the selected pattern have been read; carries the components. */
+        COMPONENTS_LOADED,
+        /** The diagram of the selected pattern is known; carries the path of the image file. */
+        IMAGE_READY
+    }
+    
+    private final PatternModel source;
+    private final Kind kind;
+    private final String patternName;
+    private final int index;
+    private final String description;
+    private final String image;
+    private final HashMap<Object,PatternClass> components;
+    
+    private PatternEvent(PatternModel source, Kind kind, String patternName, int index, String description, String image, HashMap<Object,PatternClass> components){
+        this.source = source;
+        this.kind = kind;
+        this.patternName = patternName;
+        this.index = index;
+        this.description = description;
+        this.image = image;
+        this.components = components;
+    }
+    
+    /**
+     * Creates the event of a newly selected pattern.
+     * @param source the model.
+     * @param patternName the name of the selected pattern.
+     * @param index the index of the pattern in the list of patterns.
+     * @param description the description of the pattern.
+     * @return the event.
+     */
+    public static PatternEvent patternSelected(PatternModel source, String patternName, int index, String description){
+        return new PatternEvent(source, Kind.PATTERN_SELECTED, patternName, index, description, null, null);
+    }
+    
+    /**
+     * Creates the event of newly read components.
+     * @param source the model.
+     * @param patternName the name of the pattern the components belong to.
+     * @param components the components by their ids.
+     * @return the event.
+     */
+    public static PatternEvent componentsLoaded(PatternModel source, String patternName, HashMap<Object,PatternClass> components){
+        return new PatternEvent(source, Kind.COMPONENTS_LOADED, patternName, -1, null, null, components);
+    }
+    
+    /**
+     * Creates the event of a new pattern diagram.
+     * @param source the model.
+     * @param patternName the name of the pattern the diagram belongs to.
+     * @param image the path of the image file.
+     * @return the event.
+     */
+    public static PatternEvent imageReady(PatternModel source, String patternName, String image){
+        return new PatternEvent(source, Kind.IMAGE_READY, patternName, -1, null, image, null);
+    }
+    
+    /** @return the model that has changed. */
+    public PatternModel getSource(){return source;}
+    
+    /** @return the kind of change. */
+    public Kind getKind(){return kind;}
+    
+    /** @return the name of the pattern concerned. */
+    public String getPatternName(){return patternName;}
+    
+    /** @return the index of the selected pattern, or -1 if the event is not PATTERN_SELECTED. */
+    public int getIndex(){return index;}
+    
+    /** @return the description of the selected pattern, or null if the event is not PATTERN_SELECTED. */
+    public String getDescription(){return description;}
+    
+    /** @return the path of the image file, or null if the event is not IMAGE_READY. */
+    public String getImage(){return image;}
+    
+    /** @return the components by their ids, or null if the event is not COMPONENTS_LOADED. */
+    public HashMap<Object,PatternClass> getComponents(){return components;}
+}
@@ -0,0 +1,129 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+ 
+    This file is part of the patternCoder application
+ 
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.pattern;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.SwingUtilities;
+
+/**
+ * Delivers the events of a PatternModel to the listeners subscribed to their kind.
+ * <p>
+ * Events are delivered on the event dispatch thread. Published events are collected until the
+ * dispatch thread takes them, and of several events of the same kind only the latest is
+ * delivered, so quickly switching patterns does not make the listeners redo work for patterns
+ * that are no longer selected. An event goes to the listeners that were subscribed when it was
+ * published and still are when it is delivered.
+ */
+public class PatternEventBus {
+    
+    /* The following fields are guarded by this object */
+    private final Map<PatternEvent.Kind,List<PatternListener>> listeners = new EnumMap<PatternEvent.Kind,List<PatternListener>>(PatternEvent.Kind.class);
+    private Map<PatternEvent.Kind,Delivery> queue = new EnumMap<PatternEvent.Kind,Delivery>(PatternEvent.Kind.class);
+    private boolean scheduled = false;
+    
+    private final Runnable drain = new Runnable(){
+        public void run(){
+            deliver();
+        }
+    };
+    
+    /**
+     * Subscribes a listener to a kind of event.
+     * @param kind the kind of event.
+     * @param listener the listener.
+     */
+    public synchronized void subscribe(PatternEvent.Kind kind, PatternListener listener){
+        List<PatternListener> list = listeners.get(kind);
+        if(list == null){
+            list = new ArrayList<PatternListener>();
+            listeners.put(kind, list);
+        }
+        if(!list.contains(listener)){
+            list.add(listener);
+        }
+    }
+    
+    /**
+     * Unsubscribes a listener from all kinds of event. Events that have been published but not
+     * delivered yet are not delivered to it.
+     * @param listener the listener.
+     */
+    public synchronized void unsubscribe(PatternListener listener){
+        for(List<PatternListener> list : listeners.values()){
+            list.remove(listener);
+        }
+    }
+    
+    /**
+     * Publishes an event. It replaces an event of the same kind that has not been delivered yet.
+     * @param event the event.
+     */
+    public synchronized void publish(PatternEvent event){
+        List<PatternListener> list = listeners.get(event.getKind());
+        if(list == null || list.isEmpty()){
+            return;
+        }
+        queue.put(event.getKind(), new Delivery(event, new ArrayList<PatternListener>(list)));
+        if(!scheduled){
+            scheduled = true;
+            SwingUtilities.invokeLater(drain);
+        }
+    }
+    
+    /**
+     * Delivers the collected events in the order of their kinds.
+     */
+    private void deliver(){
+        Map<PatternEvent.Kind,Delivery> deliveries;
+        synchronized(this){
+            deliveries = queue;
+            queue = new EnumMap<PatternEvent.Kind,Delivery>(PatternEvent.Kind.class);
+            scheduled = false;
+        }
+        for(Delivery delivery : deliveries.values()){
+            PatternEvent event = delivery.event;
+            for(PatternListener listener : delivery.listeners){
+                boolean subscribed;
+                synchronized(this){
+                    subscribed = listeners.get(event.getKind()).contains(listener);
+                }
+                if(subscribed){
+                    listener.patternChanged(event);
+                }
+            }
+        }
+    }
+    
+    /**
+     * An event with the listeners it is delivered to.
+     */
+    private static class Delivery {
+        
+        private final PatternEvent event;
+        private final List<PatternListener> listeners;
+        
+        Delivery(PatternEvent event, List<PatternListener> listeners){
+            this.event = event;
+            this.listeners = listeners;
+        }
+    }
+}
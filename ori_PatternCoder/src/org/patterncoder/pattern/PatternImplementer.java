@@ -21,9 +21,6 @@ package org.patterncoder.pattern;
 
 import java.io.*;
 import java.util.*;
-import java.util.regex.*;
-import java.nio.*;
-import java.nio.channels.*;
 import java.nio.charset.*;
 import java.io.IOException;
 import bluej.extensions.ProjectNotOpenException;
@@ -46,9 +43,8 @@ public class PatternImplementer {
     
     private PatternSourceManager psm;
     
-    private final String CLASS_NAME_STRING = "\\$CLASSNAME";
-    private final String DEPENDANT_CLASS = "\\$DEPENDANT";
-    private final String PACKAGE_NAME = "\\$PKGLINE";
+    /** Charset of the names inserted into templates, system property "patterncoder.templateEncoding" */
+    private static final Charset TEMPLATE_CHARSET = Charset.forName(System.getProperty("patterncoder.templateEncoding", Charset.defaultCharset().name()));
     
     private ArrayList<PatternClass> components;
     
@@ -87,13 +83,19 @@ public class PatternImplementer {
             components.add(classes.get(iter.next()));
         }
         
-        for(int i=0; i< classes.size();i++){
-            PatternClass pc = components.get(i); 
-            String template = pc.getTemplate();
-            String className = pc.getName(); 
-            createSourceFile(new File(BlueJHandler.getInstance().getCurrentPackageDir(), className+".java"), psm.getClassTemplate(template), className,  pc.getDependants());
+        // one newClass/reload sequence for all classes of the pattern
+        BlueJHandler.getInstance().beginBatch();
+        try {
+            for(int i=0; i< classes.size();i++){
+                PatternClass pc = components.get(i); 
+                String template = pc.getTemplate();
+                String className = pc.getName(); 
+                createSourceFile(new File(BlueJHandler.getInstance().getCurrentPackageDir(), className+".java"), psm.getClassTemplate(template), className,  pc.getDependants());
+            }
+            this.reloadPackage();
+        } finally {
+            BlueJHandler.getInstance().endBatch();
         }
-        this.reloadPackage();
     }
     
     /**
@@ -109,64 +111,29 @@ public class PatternImplementer {
      */
     private void createSourceFile(File destination,File sourceTemplate, String className, List<String> deps) throws IOException, ProjectNotOpenException, PackageNotFoundException{
         
-        Pattern classNamePattern = Pattern.compile(CLASS_NAME_STRING);     // this is java.util.regex.Pattern - nothing to do with design patterns!
-        Pattern packageNamePattern = Pattern.compile(PACKAGE_NAME);
-        String output = "";
-        Matcher matcher;
-        
-        ArrayList<String> deps2 = new ArrayList<String>(deps);
-        
-        // Some code adopted from The Java Developers Almanac 1.4 by Patrick Chan
-              
-        FileInputStream fis = new FileInputStream(sourceTemplate);
-        FileChannel fc = fis.getChannel();
-
-        ByteBuffer bbuf = fc.map(FileChannel.MapMode.READ_ONLY, 0, (int)fc.size());
-        CharBuffer cbuf = Charset.forName("8859_1").newDecoder().decode(bbuf);
-
-        /*Checks for class name and replaces it with correct class name*/
-        matcher = classNamePattern.matcher(cbuf);
-        output = matcher.replaceAll(className);
-
-        /*Checks for package and replaces it with current package name*/
-
-        matcher = packageNamePattern.matcher(output);
+        /*Replaces the package with the current package name*/
+        String packageLine = "";
         if(BlueJHandler.getInstance().getCurrentPackageName().compareTo("")!=0){
-            output = matcher.replaceAll("package "+BlueJHandler.getInstance().getCurrentPackageName()+";");
-        }else{
-            output = matcher.replaceAll("");
+            packageLine = "package "+BlueJHandler.getInstance().getCurrentPackageName()+";";
         }
+        TemplateRenderer renderer = new TemplateRenderer(className, packageLine, TEMPLATE_CHARSET);
 
-        /*Checks for dependant components used within this class and replaces the name with
-         the correct name instance*/
-        if(!deps2.isEmpty()){
-            for(int i=0;i<deps2.size();i++){
-                String temp = DEPENDANT_CLASS.concat(deps2.get(i));
-
-                Pattern classDepPat = Pattern.compile(temp);
-                matcher = classDepPat.matcher(output);
-                for(int t=0;t<components.size();t++){
-                    PatternClass temp2 = components.get(t);
-                    String classDep = String.valueOf(temp2.getId());
-                    if(deps2.get(i).compareTo(classDep)==0){
-                        output = matcher.replaceAll(temp2.getName());
-                    }
+        /*Replaces the dependant components used within this class with the correct name instance*/
+        for(int i=0;i<deps.size();i++){
+            for(int t=0;t<components.size();t++){
+                PatternClass temp2 = components.get(t);
+                if(deps.get(i).compareTo(String.valueOf(temp2.getId()))==0){
+                    renderer.addDependant(deps.get(i), temp2.getName());
+                    break;
                 }
-            }   
+            }
         }
 
-        /*Creates file in correct project/package folder*/
-        FileWriter out = new FileWriter(destination);
-        
-        //Adds message to end of each generated source file.
-        String newOutput = output.concat("\n\n/*\n " +
+        /*Creates file in correct project/package folder, with a message at the end*/
+        renderer.render(sourceTemplate, destination, "\n\n/*\n " +
                                               "*Source file generated by patternCoder for BlueJ Version "+ PatternCoder.VERSION +".\n " +
                                               "*For more info, please visit "+PatternCoder.EXT_URL+".\n "+
                                               "*/");
-        out.write(newOutput);
-
-        fis.close();
-        out.close();
             
        /*Adds the class to the project*/
         addClass(className);
@@ -0,0 +1,32 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+ 
+    This file is part of the patternCoder application
+ 
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.patterncoder.pattern;
+
+/**
+ * Receives the changes of a PatternModel it has subscribed to.
+ * @see PatternModel#addPatternListener
+ */
+public interface PatternListener {
+    
+    /**
+     * Called on the event dispatch thread for each kind of change the listener has subscribed to.
+     * @param event the change, with the changed data.
+     */
+    public void patternChanged(PatternEvent event);
+}
@@ -19,7 +19,6 @@
 
 package org.patterncoder.pattern;
 
-import java.util.Observable;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.*;
@@ -28,6 +27,7 @@ import org.patterncoder.wizard.WizardPanelDescriptor;
 import org.xml.sax.SAXException;
 import org.patterncoder.source.PatternFileReaderDom;
 import org.patterncoder.source.PatternFileReader;
+import org.patterncoder.source.PatternHeaderReader;
 import org.patterncoder.source.PatternSourceManager;
 import org.patterncoder.source.XMLSourceHandler;
 import org.patterncoder.PatternCoderException;
@@ -42,12 +42,14 @@ import org.patterncoder.ErrorHandler;
  *<p>
  *model in the Model View Controllor architecture.
  *<p>
- *PatternModel extends the Observable class from the java.util library, and allows all objects with the code
- *to registar an interest in any changes being made to the model.
+ *PatternModel publishes typed PatternEvents, and allows all objects with the code to registar an interest
+ *in the kinds of change they need. The events carry the changed data and are delivered on the Swing thread.
+ *
+ *@see PatternEventBus
  *
  * @author Michael Nairn
  */
-public class PatternModel extends Observable{
+public class PatternModel{
         
     
     private List<String> files = new ArrayList<String>();   
@@ -63,6 +65,7 @@ public class PatternModel extends Observable{
     
     private PatternSourceManager sourceHandler;
     private PatternFileReader reader;
+    private PatternEventBus events = new PatternEventBus();
      
     
     /**
@@ -87,32 +90,55 @@ public class PatternModel extends Observable{
     
     /**
      * Populates the model used to display information.
-     * The model is populated by the Pattern files specified by the PatternSourceManager object, all pattern data required is
-     * loaded into the model.
+     * The model is populated by the Pattern files specified by the PatternSourceManager object. Only the
+     * pattern names are read at this point, in parallel and without validation; a file is validated and
+     * read in full when it is selected with setCurrentPattern. The first pattern is selected when the
+     * wizard opens, so leading files that cannot be validated are dropped here.
      * @throws java.lang.Exception thrown if a general exception occurs.
      * @throws java.io.FileNotFoundException thrown if the file used to populate creates a problem.
      */
     public void populateModel() throws FileNotFoundException, Exception{
-        int index = 0;
-        files = sourceHandler.getSourceFiles();
-        File tempFile;
-        int length = files.size();
-        for(int i=0;i<length;i++){
-            tempFile = new File(files.get(i).toString());   // testing bug fix for issue 5
-            try{
-                reader.parseFile(tempFile);
-                if(reader.getPatternName()!=null){
-                    patterns.add(reader.getPatternName());
-                }
-            }catch(SAXException saxe){
-                System.out.println("A problem occured trying to validate"+tempFile);
-                System.out.println(saxe.getMessage());//
-            }catch(IOException e){
-                ErrorHandler.logErrorMsg("Problem reading file: "+tempFile);
+        List<String> sources = sourceHandler.getPatternFiles();
+        List<String> names = PatternHeaderReader.readPatternNames(sources);
+        files = new ArrayList<String>();
+        patterns = new ArrayList<String>();
+        for(int i=0;i<sources.size();i++){
+            //files and patterns are kept in step, as the chooser index selects the file
+            if(names.get(i)!=null){
+                files.add(sources.get(i));
+                patterns.add(names.get(i));
+            }else{
+                ErrorHandler.logErrorMsg("No pattern name found in file: "+sources.get(i));
             }
         }
+        while(!files.isEmpty() && !isReadable(new File(files.get(0)))){
+            files.remove(0);
+            patterns.remove(0);
+        }
+        if(files.isEmpty()){
+            throw new FileNotFoundException("No valid pattern file found");
+        }
+        curIndex = 0;
+        curPattern = patterns.get(0);
   
     }//End of populateModel
+    
+    /**
+     * Checks whether a pattern file can be read and validated.
+     * @param file the pattern file.
+     * @return true if the file can be read.
+     */
+    private boolean isReadable(File file){
+        try{
+            reader.parseFile(file);
+            return true;
+        }catch(SAXException saxe){
+            ErrorHandler.logErrorMsg("A problem occured trying to validate "+file+"\n"+saxe.getMessage());
+        }catch(IOException ioe){
+            ErrorHandler.logErrorMsg("Problem reading file: "+file);
+        }
+        return false;
+    }
  
     
     /**
@@ -175,25 +201,64 @@ public class PatternModel extends Observable{
      *Changes currently selected pattern variables accordingly.
      *Notifys all observing objects of the change
      *
+     *If the file of the pattern cannot be read or validated, an error is shown and the previous
+     *pattern stays selected.
+     *
      * @param curPattern The pattern currently selected by the user
      * @param index The index of the pattern in the ComboBox
+     * @return true if the pattern has been selected, false if its file could not be read.
      */
-    public void setCurrentPattern(String curPattern,int index){
+    public boolean setCurrentPattern(String curPattern,int index){
+        File temp = new File(files.get(index).toString());
+        try{
+            //pattern files are only validated once they are selected
+            reader.parseFile(temp);
+        }catch(SAXException saxe){
+            ErrorHandler.printErrorMsg("Could not validate pattern file "+temp, saxe);
+            return false;
+        }catch(IOException ioe){
+            ErrorHandler.printErrorMsg("Could not read pattern file "+temp, ioe);
+            return false;
+        }
         try{
             this.curPattern = curPattern;
             this.curIndex = index;
-            File temp = new File(files.get(curIndex).toString());
-            reader.parseFile(temp);
             setDescription(reader.getPatternDesc());
-            sourceHandler.getImage(reader.getPatternImage()).toString();
+            events.publish(PatternEvent.patternSelected(this, curPattern, index, description));
             setImage(sourceHandler.getImage(reader.getPatternImage()).toString());
+            events.publish(PatternEvent.imageReady(this, curPattern, image));
             setComponents();//Put here 07/11/05
+            events.publish(PatternEvent.componentsLoaded(this, curPattern, comps));
         }catch(Exception e){
             e.printStackTrace();
         } 
-        setChanged();
-        notifyObservers();
-    }//End of setCurrentPattern   
+        return true;
+    }//End of setCurrentPattern
+    
+    /**
+     * Returns the index of the pattern that is currently selected.
+     * @return the index of the current pattern in the ComboBox.
+     */
+    public int getCurrentIndex(){
+        return curIndex;
+    }
+    
+    /**
+     * Subscribes a listener to a kind of change of the model.
+     * @param kind the kind of change.
+     * @param listener the listener, called on the Swing thread.
+     */
+    public void addPatternListener(PatternEvent.Kind kind, PatternListener listener){
+        events.subscribe(kind, listener);
+    }
+    
+    /**
+     * Unsubscribes a listener from all changes of the model.
+     * @param listener the listener.
+     */
+    public void removePatternListener(PatternListener listener){
+        events.unsubscribe(listener);
+    }   
     
     /**
      * Creates a list of components of type PatternClass.
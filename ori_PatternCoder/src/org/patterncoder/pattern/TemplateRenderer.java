@@ -0,0 +1,195 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+ 
+    This file is part of the patternCoder application
+ 
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.patterncoder.pattern;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders a class template into a java source file.
+ * <p>
+ * The template is memory mapped and scanned byte by byte for the placeholders $CLASSNAME, $PKGLINE
+ * and $DEPENDANT followed by a component id. Text between placeholders is copied to the destination
+ * unchanged, so the template keeps its encoding; only the substituted names are encoded, with the
+ * charset given to the constructor. Output goes through a buffer of fixed size, so a template of
+ * any size is rendered in one pass without being held in memory as a string.
+ */
+class TemplateRenderer {
+    
+    private static final byte[] CLASS_NAME = ascii("CLASSNAME");
+    private static final byte[] PACKAGE_NAME = ascii("PKGLINE");
+    private static final byte[] DEPENDANT_CLASS = ascii("DEPENDANT");
+    private static final int BUFFER_SIZE = 8192;
+    
+    private final Charset charset;
+    private final byte[] className;
+    private final byte[] packageLine;
+    private final List<byte[]> dependantIds = new ArrayList<byte[]>();
+    private final List<byte[]> dependantNames = new ArrayList<byte[]>();
+    
+    /**
+     * Creates a renderer for one class.
+     * @param className the name of the new class.
+     * @param packageLine the package declaration, or an empty string for the default package.
+     * @param charset the charset the names are written in; should match the encoding of the templates.
+     */
+    TemplateRenderer(String className, String packageLine, Charset charset) {
+        this.charset = charset;
+        this.className = className.getBytes(charset);
+        this.packageLine = packageLine.getBytes(charset);
+    }
+    
+    /**
+     * Adds a dependant component. Where several ids match a placeholder, the one added first is used.
+     * @param id the id of the component, as it follows $DEPENDANT in the template.
+     * @param name the class name replacing the placeholder.
+     */
+    void addDependant(String id, String name) {
+        dependantIds.add(id.getBytes(charset));
+        dependantNames.add(name.getBytes(charset));
+    }
+    
+    /**
+     * Renders a template into a file.
+     * @param template the template file.
+     * @param destination the java source file to write; an existing file is replaced.
+     * @param footer text appended after the template.
+     * @throws java.io.IOException thrown if the template cannot be read or the destination cannot be written.
+     */
+    void render(File template, File destination, String footer) throws IOException {
+        FileInputStream in = new FileInputStream(template);
+        try {
+            FileChannel source = in.getChannel();
+            MappedByteBuffer bytes = source.map(FileChannel.MapMode.READ_ONLY, 0, source.size());
+            FileOutputStream out = new FileOutputStream(destination);
+            try {
+                FileChannel target = out.getChannel();
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                int limit = bytes.limit();
+                int literalStart = 0;
+                int i = 0;
+                while (i < limit) {
+                    if (bytes.get(i) != '$') {
+                        i++;
+                        continue;
+                    }
+                    byte[] replacement = null;
+                    int end = i + 1;
+                    if (matches(bytes, end, CLASS_NAME)) {
+                        replacement = className;
+                        end += CLASS_NAME.length;
+                    } else if (matches(bytes, end, PACKAGE_NAME)) {
+                        replacement = packageLine;
+                        end += PACKAGE_NAME.length;
+                    } else if (matches(bytes, end, DEPENDANT_CLASS)) {
+                        end += DEPENDANT_CLASS.length;
+                        for (int d = 0; d < dependantIds.size(); d++) {
+                            if (matches(bytes, end, dependantIds.get(d))) {
+                                replacement = dependantNames.get(d);
+                                end += dependantIds.get(d).length;
+                                break;
+                            }
+                        }
+                    }
+                    if (replacement == null) {
+                        i++;
+                        continue;
+                    }
+                    write(target, buffer, bytes, literalStart, i);
+                    write(target, buffer, ByteBuffer.wrap(replacement));
+                    literalStart = end;
+                    i = end;
+                }
+                write(target, buffer, bytes, literalStart, limit);
+                write(target, buffer, ByteBuffer.wrap(footer.getBytes(charset)));
+                buffer.flip();
+                drain(target, buffer);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+    
+    /**
+     * Returns true if the bytes at a position of the template equal a token.
+     */
+    private static boolean matches(ByteBuffer bytes, int position, byte[] token) {
+        if (position + token.length > bytes.limit()) {
+            return false;
+        }
+        for (int i = 0; i < token.length; i++) {
+            if (bytes.get(position + i) != token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Writes a range of the template.
+     */
+    private static void write(FileChannel target, ByteBuffer buffer, ByteBuffer bytes, int start, int end) throws IOException {
+        if (start < end) {
+            ByteBuffer range = bytes.duplicate();
+            range.limit(end).position(start);
+            write(target, buffer, range);
+        }
+    }
+    
+    /**
+     * Writes bytes through the buffer; ranges larger than the buffer are written directly.
+     */
+    private static void write(FileChannel target, ByteBuffer buffer, ByteBuffer bytes) throws IOException {
+        if (bytes.remaining() > buffer.remaining()) {
+            buffer.flip();
+            drain(target, buffer);
+            buffer.clear();
+            if (bytes.remaining() > buffer.capacity()) {
+                drain(target, bytes);
+                return;
+            }
+        }
+        buffer.put(bytes);
+    }
+    
+    private static void drain(FileChannel target, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            target.write(bytes);
+        }
+    }
+    
+    private static byte[] ascii(String s) {
+        try {
+            return s.getBytes("US-ASCII");
+        } catch (java.io.UnsupportedEncodingException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+}
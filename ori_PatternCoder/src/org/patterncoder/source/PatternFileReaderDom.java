@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import org.xml.sax.SAXException;
 import org.patterncoder.wizard.WizardPanelDescriptor;
 import java.util.HashMap;
+import java.util.Map;
 import org.patterncoder.wizard.Wizard;
 import org.patterncoder.pattern.PatternClass;
 import org.patterncoder.pattern.PatternModel;
@@ -49,6 +50,9 @@ public class PatternFileReaderDom implements PatternFileReader {
     private PatternFileValidator validator;
     private DocumentBuilder parser;
     private Document xmlDoc;
+    
+    /** Parsed documents by canonical path, shared by all readers. Guarded by itself. */
+    private static final Map<String,CachedDocument> documents = new HashMap<String,CachedDocument>();
        
      /*Tags used within xml files*/
     
@@ -112,12 +116,40 @@ public class PatternFileReaderDom implements PatternFileReader {
      * <p>
      * Generates a DOM tree object used by the other methods to retrieve information about the patterns.
      * The parseFile method must be called prior to calling any other methods.
+     * <p>
+     * Documents are cached by canonical path, so a file is validated and parsed again only
+     * when its modification time or length has changed since it was last read.
      * @param sourceFile The input file to be parsed(XML).
      * @throws java.io.IOException Thrown if file does not exist.
      */
     public void parseFile(File sourceFile) throws IOException, SAXException{
-        validator.validateFile(sourceFile.toString());
-        xmlDoc = parser.parse(sourceFile);        
+        String path = sourceFile.getCanonicalPath();
+        long lastModified = sourceFile.lastModified();
+        long length = sourceFile.length();
+        synchronized(documents){
+            CachedDocument cached = documents.get(path);
+            if(cached != null && cached.isCurrent(lastModified, length) && (cached.validated || validator == null)){
+                xmlDoc = cached.getDocument();
+                return;
+            }
+        }
+        Document doc = null;
+        String failure = null;
+        try{
+            if(validator != null){
+                validator.validateFile(sourceFile.toString());
+            }
+            doc = parser.parse(sourceFile);
+        }catch(SAXException saxe){
+            failure = saxe.getMessage();
+        }
+        synchronized(documents){
+            documents.put(path, new CachedDocument(lastModified, length, validator != null, doc, failure));
+        }
+        if(failure != null){
+            throw new SAXException(failure);
+        }
+        xmlDoc = doc;
     }
     
     /**
@@ -256,7 +288,7 @@ public class PatternFileReaderDom implements PatternFileReader {
                 previousTemp = previous.getNodeValue().toString();
             }
             
-            WizardPanelDescriptor tempDescriptor = new WizardPanelDescriptor(stepId.getNodeValue(), nextTemp, previousTemp, stepName.getNodeValue().toString(), stepDesc.getNodeValue().toString(), new org.patterncoder.wizard.panels.ClassPanel(parent, model, compId.getNodeValue()));
+            WizardPanelDescriptor tempDescriptor = new WizardPanelDescriptor(stepId.getNodeValue(), nextTemp, previousTemp, stepName.getNodeValue().toString(), stepDesc.getNodeValue().toString(), parent.getWizardModel().getClassPanel(parent, model, compId.getNodeValue()));
             
             descriptors.add(tempDescriptor);
         }
@@ -264,6 +296,45 @@ public class PatternFileReaderDom implements PatternFileReader {
         return descriptors;
     }
     
+    /**
+     * The result of validating and parsing a pattern file, together with the modification time
+     * and length the file had when it was read. A file that failed validation is remembered with
+     * its error message, so it is not validated again until it changes.
+     */
+    private static class CachedDocument{
+        
+        private final long lastModified;
+        private final long length;
+        private final boolean validated;
+        private final Document document;
+        private final String failure;
+        
+        CachedDocument(long lastModified, long length, boolean validated, Document document, String failure){
+            this.lastModified = lastModified;
+            this.length = length;
+            this.validated = validated;
+            this.document = document;
+            this.failure = failure;
+        }
+        
+        /**
+         * Returns true if the file has not changed since it was read.
+         */
+        boolean isCurrent(long lastModified, long length){
+            return this.lastModified == lastModified && this.length == length;
+        }
+        
+        /**
+         * Returns the parsed document, or throws the remembered validation error.
+         */
+        Document getDocument() throws SAXException{
+            if(failure != null){
+                throw new SAXException(failure);
+            }
+            return document;
+        }
+    }
+    
     /**
  * This ErrorHandler prints any Warning , Error or Fatal Error.
  */
@@ -21,6 +21,8 @@ package org.patterncoder.source;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.text.CharacterIterator;
 import java.text.StringCharacterIterator;
 import javax.xml.transform.stream.StreamSource;
@@ -35,6 +37,9 @@ import org.xml.sax.SAXException;
 /**
  * The PatternFileValidator class is used to validate each of the xml source files against a xmlSchema.
  * If a source file does not get validated, it will not be included.
+ * <p>
+ * A compiled schema is shared by all instances, and every thread validates with a Validator of its
+ * own, as Validator objects are not thread-safe; an instance can therefore be used by several threads.
  * @author Michael Nairn
  */
 public class PatternFileValidator {
@@ -47,18 +52,46 @@ public class PatternFileValidator {
     /** schema filename **/
     static final String SCHEMA_FILENAME = "patternschema.xsd";
     
+    /** Compiled schemas by path of the schema file, guarded by itself */
+    private static final Map<String,CompiledSchema> schemas = new HashMap<String,CompiledSchema>();
+    
     private Schema schema;
-    private Validator validator;
+    private ThreadLocal<Validator> validators = new ThreadLocal<Validator>(){
+        protected Validator initialValue(){
+            Validator validator = schema.newValidator();
+            validator.setErrorHandler(new ValidatorErrorHandler());
+            return validator;
+        }
+    };
     
     /**
      * Creates a new instance of PatternFileValidator, and compiles the validating schema.
+     * The schema is only compiled again if the schema file has changed since an earlier instance compiled it.
      * @throws org.xml.sax.SAXException A SAXException is thrown if the schema file cannot be found, or there is aproblem during comilation of the schema.
      */
     public PatternFileValidator() throws SAXException {
          
-        schema = compileSchema(getPatternSchemaFile());
-        validator = schema.newValidator();
-        validator.setErrorHandler(new ValidatorErrorHandler());
+        schema = getSharedSchema(getPatternSchemaFile());
+    }
+    
+    /**
+     * Returns the compiled schema of a schema file, compiling it if it has not been compiled
+     * since the file last changed.
+     * @param schemaFile The schema file.
+     * @throws org.xml.sax.SAXException Throws a SAXException if compilation of the schema fails.
+     * @return The compiled schema, which is thread-safe.
+     */
+    private static Schema getSharedSchema(File schemaFile) throws SAXException{
+        String path = schemaFile.getAbsolutePath();
+        long lastModified = schemaFile.lastModified();
+        synchronized(schemas){
+            CompiledSchema compiled = schemas.get(path);
+            if(compiled == null || compiled.lastModified != lastModified){
+                compiled = new CompiledSchema(lastModified, compileSchema(schemaFile));
+                schemas.put(path, compiled);
+            }
+            return compiled.schema;
+        }
     }
     
     /**
@@ -103,7 +136,21 @@ public class PatternFileValidator {
      * @throws java.io.IOException Thrown if the source file cannot be read or found for any reason.
      */
     public void validateFile(File sourceFile) throws SAXException, IOException{        
-        validator.validate(new StreamSource(sourceFile));
+        validators.get().validate(new StreamSource(sourceFile));
+    }
+    
+    /**
+     * A compiled schema with the modification time of its file.
+     */
+    private static class CompiledSchema{
+        
+        private final long lastModified;
+        private final Schema schema;
+        
+        CompiledSchema(long lastModified, Schema schema){
+            this.lastModified = lastModified;
+            this.schema = schema;
+        }
     }
     
     
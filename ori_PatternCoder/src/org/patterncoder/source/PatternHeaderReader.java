@@ -0,0 +1,169 @@
+/* Copyright (C) 2005 - 2007 the patternCoder team, http://www.patterncoder.org
+ 
+    This file is part of the patternCoder application
+ 
+    This program is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License along
+    with this program; if not, write to the Free Software Foundation, Inc.,
+    51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+
+package org.patterncoder.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import org.patterncoder.ErrorHandler;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+
+/**
+ * Reads the name of a pattern from the attributes of the root element of its source file.
+ * <p>
+ * The file is read with a SAX parser that stops at the first element, so neither the schema
+ * validation nor a DOM tree is needed to list the available patterns. The full file is
+ * validated and parsed by the PatternFileReader once a pattern is selected.
+ */
+public class PatternHeaderReader {
+    
+    private static final String PATTERN_TAG = "pattern";
+    private static final String PAT_NAME_TAG = "patternName";
+    
+    private static final SAXParserFactory factory = SAXParserFactory.newInstance();
+    
+    static{
+        factory.setValidating(false);
+        try{
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        }catch(Exception e){
+            //the parser reads the external DTD, which is slower but harmless
+        }
+    }
+    
+    /**
+     * Class constructor.
+     * Declared private as the class only provides static methods.
+     */
+    private PatternHeaderReader() {
+    }
+    
+    /**
+     * Returns the name of the pattern described by a pattern source file.
+     * Only the start of the file up to the root element is read.
+     * @param sourceFile the pattern source file.
+     * @return the name of the pattern, or null if the root element is not a pattern or has no name.
+     * @throws java.io.IOException thrown if the file cannot be read.
+     * @throws org.xml.sax.SAXException thrown if the start of the file is not well formed.
+     */
+    public static String readPatternName(File sourceFile) throws IOException, SAXException {
+        SAXParser parser;
+        try{
+            synchronized(factory){
+                parser = factory.newSAXParser();
+            }
+        }catch(ParserConfigurationException pce){
+            throw new SAXException(pce.getMessage());
+        }
+        HeaderHandler handler = new HeaderHandler();
+        try{
+            parser.parse(sourceFile, handler);
+        }catch(HeaderFound found){
+            //the root element has been read
+        }
+        return handler.name;
+    }
+    
+    /**
+     * Reads the pattern names of several source files in parallel.
+     * The result has one entry for each file, in the order of the files; the entry of a
+     * file that could not be read is null.
+     * @param sourceFiles the paths of the pattern source files.
+     * @return the names of the patterns.
+     */
+    public static List<String> readPatternNames(List<String> sourceFiles) {
+        List<String> names = new ArrayList<String>(sourceFiles.size());
+        if(sourceFiles.isEmpty()){
+            return names;
+        }
+        int threads = Math.min(sourceFiles.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory(){
+            public Thread newThread(Runnable r){
+                Thread thread = new Thread(r, "PatternCoder pattern scan");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try{
+            List<Future<String>> results = new ArrayList<Future<String>>(sourceFiles.size());
+            for(final String sourceFile : sourceFiles){
+                results.add(executor.submit(new Callable<String>(){
+                    public String call() throws Exception{
+                        return readPatternName(new File(sourceFile));
+                    }
+                }));
+            }
+            for(int i=0;i<results.size();i++){
+                String name = null;
+                try{
+                    name = results.get(i).get();
+                }catch(ExecutionException ee){
+                    ErrorHandler.logErrorMsg("Could not read pattern file " + sourceFiles.get(i) + ": " + ee.getCause().getMessage());
+                }catch(InterruptedException ie){
+                    Thread.currentThread().interrupt();
+                }
+                names.add(name);
+            }
+        }finally{
+            executor.shutdownNow();
+        }
+        return names;
+    }
+    
+    /**
+     * Signals that the root element has been read, and stops the parser.
+     */
+    private static class HeaderFound extends SAXException {
+        private static final long serialVersionUID = 1L;
+        
+        HeaderFound(){
+            super("root element read");
+        }
+    }
+    
+    /**
+     * Picks the pattern name out of the root element.
+     */
+    private static class HeaderHandler extends DefaultHandler {
+        
+        private String name;
+        
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if(PATTERN_TAG.equals(qName)){
+                name = attributes.getValue(PAT_NAME_TAG);
+            }
+            throw new HeaderFound();
+        }
+    }
+}
@@ -44,6 +44,14 @@ public interface PatternSourceManager {
      */
     public ArrayList<String> getSourceFiles()  throws FileNotFoundException, Exception;
     
+    /**
+     * Returns an ArrayList of Pattern source files without validating them. The ArrayList contains
+     * objects of type String. The files are validated when they are read.
+     * @return the list of pattern source files.
+     * @throws java.io.FileNotFoundException thrown if directory not found.
+     */
+    public ArrayList<String> getPatternFiles()  throws FileNotFoundException;
+    
     /**
      * Returns the template file specified by the name of the template.
      * @return the template file.
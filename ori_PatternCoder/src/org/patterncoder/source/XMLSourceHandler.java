@@ -19,6 +19,8 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.patterncoder.BlueJHandler;
@@ -29,6 +31,12 @@ import org.xml.sax.SAXException;
 /**
  * Deals with the directories required by the extension.
  * Any objects requireing directory information, should declare an instance of this class.
+ * <p>
+ * The PatternFiles directory is located once, and the list of pattern files is kept. A daemon
+ * timer checks the modification time of the directory every few seconds (system property
+ * "patterncoder.watchInterval", in milliseconds) and drops the list when it has changed, so
+ * repeated openings of the wizard do not search the directories again. The files are validated
+ * when a pattern is selected; PatternFileReaderDom keeps the result for each file.
  *
  * @author Michael Nairn
  */
@@ -43,6 +51,12 @@ public class XMLSourceHandler implements PatternSourceManager {
     private final String CLASS_TEMPLATES = "templates";
     private final String IMG_DIR = "images";
     private final String PAT_FILE_EXTENSION = ".xml";
+    private static final long WATCH_INTERVAL = Long.getLong("patterncoder.watchInterval", 2000).longValue();
+    
+    /* The following fields are guarded by this object */
+    private long extensionDirStamp;//Modification time of the PatternFiles folder when it was listed
+    private ArrayList<String> patternFiles;//Canonical paths of the pattern files, null if not listed
+    private Timer watch;
 
     /**
      * Class constructor.
@@ -83,34 +97,62 @@ public class XMLSourceHandler implements PatternSourceManager {
      * @throws java.lang.Exception thrown if a general exception occurs.
      * @throws java.io.FileNotFoundException thrown if the source file can not be found.
      */
-    public ArrayList<String> getSourceFiles() throws FileNotFoundException, Exception {
-        validator = new PatternFileValidator();
+    public synchronized ArrayList<String> getSourceFiles() throws FileNotFoundException, Exception {
+        if (validator == null) {
+            validator = new PatternFileValidator();
+        }
         ArrayList<String> sources = new ArrayList<String>();
-        //String extDir = getExtensionDir()+"/";
-        // String extDir = getExtensionDir()+ System.getProperties().getProperty("file.separator"); 
-        // String[] temp = getExtensionDir().list();
-
-        PatternCodeFileFilter patternFileFilter = new PatternCodeFileFilter(PAT_FILE_EXTENSION);
-
-        File[] patternFiles = getExtensionDir().listFiles(patternFileFilter);
-
-        File patternFile = null;
-        for (int i = 0; i < patternFiles.length; i++) {
+        for (String path : listPatternFiles()) {
             try {
-                patternFile = patternFiles[i];
-                validator.validateFile(patternFile);
-                sources.add(patternFile.getCanonicalPath());
+                validator.validateFile(new File(path));
+                sources.add(path);
             } catch (SAXException saxe) {
-                
-                ErrorHandler.logErrorMsg("Could not validate file " + patternFile.getAbsolutePath() + saxe.getMessage());
-            } catch (IOException ioe){
+                ErrorHandler.logErrorMsg("Could not validate file " + path + saxe.getMessage());
+            } catch (IOException ioe) {
                 ErrorHandler.printErrorMsg("problem open file", ioe);
-                ErrorHandler.logErrorMsg("Could not access file " + patternFile.getAbsolutePath() + ioe.getMessage());
+                ErrorHandler.logErrorMsg("Could not access file " + path + ioe.getMessage());
             }
         }
         return sources;
     }
 
+    /**
+     * Returns an ArrayList of the paths of all pattern source files in the PatternFiles directory.
+     * Unlike getSourceFiles, the files are not validated; this is left to the PatternFileReader
+     * when a pattern is selected.
+     * @return a list of source files.
+     * @throws java.io.FileNotFoundException thrown if the PatternFiles directory can not be found.
+     */
+    public synchronized ArrayList<String> getPatternFiles() throws FileNotFoundException {
+        return new ArrayList<String>(listPatternFiles());
+    }
+
+    /**
+     * Returns the canonical paths of the pattern files, listing the PatternFiles directory
+     * if it has not been listed since it last changed.
+     */
+    private ArrayList<String> listPatternFiles() throws FileNotFoundException {
+        if (patternFiles != null) {
+            return patternFiles;
+        }
+        File dir = getExtensionDir();
+        long stamp = dir.lastModified();
+        ArrayList<String> sources = new ArrayList<String>();
+        File[] files = dir.listFiles(new PatternCodeFileFilter(PAT_FILE_EXTENSION));
+        if (files != null) {
+            for (int i = 0; i < files.length; i++) {
+                try {
+                    sources.add(files[i].getCanonicalPath());
+                } catch (IOException ioe) {
+                    ErrorHandler.logErrorMsg("Could not access file " + files[i].getAbsolutePath() + ioe.getMessage());
+                }
+            }
+        }
+        extensionDirStamp = stamp;
+        patternFiles = sources;
+        return patternFiles;
+    }
+
     /**
      * Returns the template file of a given template name.
      * Searches the template directory for a template with the given name.
@@ -146,11 +188,54 @@ public class XMLSourceHandler implements PatternSourceManager {
      *
      * @return the extension directory. 
      */
-    private File getExtensionDir() throws FileNotFoundException {
-        this.extensionDir = findExtensionDir();
+    private synchronized File getExtensionDir() throws FileNotFoundException {
+        if (this.extensionDir == null) {
+            this.extensionDir = findExtensionDir();
+            startWatch();
+        }
         return this.extensionDir;
     }
 
+    /**
+     * Forgets the location of the PatternFiles folder and the list of pattern files. Both are
+     * looked up again on the next request.
+     */
+    public synchronized void refresh() {
+        extensionDir = null;
+        patternFiles = null;
+    }
+
+    /**
+     * Starts the timer that watches the PatternFiles folder, unless it is running already.
+     */
+    private void startWatch() {
+        if (watch != null) {
+            return;
+        }
+        watch = new Timer("PatternCoder pattern files watch", true);
+        watch.schedule(new TimerTask() {
+            public void run() {
+                checkForChanges();
+            }
+        }, WATCH_INTERVAL, WATCH_INTERVAL);
+    }
+
+    /**
+     * Drops the cached list of pattern files if the PatternFiles folder has changed.
+     */
+    private synchronized void checkForChanges() {
+        if (extensionDir == null) {
+            return;
+        }
+        if (!extensionDir.isDirectory()) {
+            refresh();
+            return;
+        }
+        if (patternFiles != null && extensionDir.lastModified() != extensionDirStamp) {
+            patternFiles = null;
+        }
+    }
+
     /**
      * Discovers the location of the PatternFiles folder, which contains files of all
      * patterns. The PatternFiles folder is installed into the same extensions folder as
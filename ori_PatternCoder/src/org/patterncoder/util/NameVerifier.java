@@ -19,41 +19,76 @@
 
 package org.patterncoder.util;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
- * Utility class which simply provides methods to check for invalid characters within the names of java source files.
+ * Utility class which simply provides methods to check the names of java source files.
+ * A valid name is a Java identifier that is not a keyword; characters are classified with tables
+ * built once, as the check runs for every name entered in the wizard.
  * @author Michael Nairn
  */
 public class NameVerifier {
     
+    private static final boolean[] ASCII_START = new boolean[128];
+    private static final boolean[] ASCII_PART = new boolean[128];
+    
     /**
-     * Invalid characters.
+     * Words that cannot name a class.
      */
-    static char[] chars = {'!','"','%','`',' ','~','#','^','&','*','(',')','+','=','{','}','[',']'
-            ,'@',':',';','?','>','<','|'};
+    private static final Set<String> KEYWORDS = new HashSet<String>(Arrays.asList(new String[]{
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+        "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+        "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+        "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+        "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+        "volatile", "while", "true", "false", "null", "_", "var", "yield", "record", "sealed", "permits"}));
+    
+    static{
+        for(char c=0;c<128;c++){
+            ASCII_START[c] = Character.isJavaIdentifierStart(c);
+            ASCII_PART[c] = Character.isJavaIdentifierPart(c) && !Character.isIdentifierIgnorable(c);
+        }
+    }
     
     /**
-     * Checks a source name against a list of known invalid characters. Returns a boolean value indicating wether the name is valid or not.
-     * @param name The name that requires a check for invalid characters.
-     * @return returns true if the name is well formaed and valid. False is returned if the name is invalid.
+     * Checks a source name. Returns a boolean value indicating wether the name is valid or not.
+     * @param name The name that requires a check.
+     * @return returns true if the name is a Java identifier and not a keyword. False is returned if the name is invalid.
      */
     public static boolean verifyName(String name){
-        boolean wellFormed = true;
-        
-        if(name.compareTo("")==0){
-            wellFormed = false;
-        }else{
-            for(int i=0;i<chars.length;i++){
-                for(int nameChar=0;nameChar<name.length();nameChar++){
-                    if(chars[i] == name.charAt(nameChar)){
-                        wellFormed = false;
-                        break;
-                    }
-                }
+        if(name == null || name.length() == 0){
+            return false;
+        }
+        int codePoint = name.codePointAt(0);
+        if(!(codePoint < 128 ? ASCII_START[codePoint] : Character.isJavaIdentifierStart(codePoint))){
+            return false;
+        }
+        for(int i=Character.charCount(codePoint);i<name.length();i+=Character.charCount(codePoint)){
+            codePoint = name.codePointAt(i);
+            if(!(codePoint < 128 ? ASCII_PART[codePoint]
+                    : Character.isJavaIdentifierPart(codePoint) && !Character.isIdentifierIgnorable(codePoint))){
+                return false;
+            }
+        }
+        return !KEYWORDS.contains(name);
+    }
+    
+    /**
+     * Returns the first name that occurs more than once in a list of names, ignoring case, as
+     * such names map to the same source file on some file systems.
+     * @param names the class names of a pattern.
+     * @return the duplicate name, or null if all names differ.
+     */
+    public static String findDuplicate(java.util.List<String> names){
+        Set<String> seen = new HashSet<String>();
+        for(String name : names){
+            if(name != null && !seen.add(name.toLowerCase(java.util.Locale.ROOT))){
+                return name;
             }
-            
         }
-        
-        return wellFormed;
+        return null;
     }
     
 }
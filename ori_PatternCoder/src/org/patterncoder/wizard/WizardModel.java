@@ -19,40 +19,57 @@
 
 package org.patterncoder.wizard;
 
-import javax.swing.JPanel;
-import java.util.List;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Observable;
+import java.util.List;
+import org.patterncoder.pattern.PatternModel;
+import org.patterncoder.wizard.panels.ClassPanel;
 
 
 /**
  * The wizard model class is used to hold data required for the wizard process and the wizard framework.
+ * <p>
+ * The panel descriptors are kept in the order of their steps; the step number of a descriptor is its
+ * position plus one. The ClassPanels of a cleared wizard are kept in a pool and bound to the
+ * components of the next pattern, so switching patterns does not build new forms.
  *
  * @author Michael Nairn
  */
 public class WizardModel{
     
-    private HashMap<Object,WizardPanelDescriptor> wp;    
-    private WizardPanelDescriptor currentPanel;
-    private int step;
+    private static final Object CHOICE_PANEL_ID = "ChoicePanel";
+    /** Largest number of unused ClassPanels kept for reuse */
+    private static final int MAX_POOLED_PANELS = 32;
+    
+    private WizardPanelDescriptor[] wp;
+    private int count;
+    private int currentIndex = -1;
+    private List<ClassPanel> panelPool = new ArrayList<ClassPanel>();
 
     /** Creates a new instance of WizardModel */
     public WizardModel(){        
-        wp = new HashMap<Object,WizardPanelDescriptor>();
-        step = 1;
+        wp = new WizardPanelDescriptor[8];
+        count = 0;
     }
     
     /**
      * Registers a panel descriptor with the wizard model.
      * This method should be called for each of the panels in a given pattern.
+     * A descriptor with the id of a registered descriptor replaces it.
      * @param id the Object based id of the wizard panel descriptor.
      * @param panel the WizardPanelDescriptor object.
      */
     public void registerWizardPanel(Object id, WizardPanelDescriptor panel){
-        panel.setStepNum(step);
-        step++;
-        wp.put(id, panel);
+        int index = indexOf(id);
+        if(index < 0){
+            if(count == wp.length){
+                WizardPanelDescriptor[] larger = new WizardPanelDescriptor[wp.length * 2];
+                System.arraycopy(wp, 0, larger, 0, count);
+                wp = larger;
+            }
+            index = count++;
+        }
+        panel.setStepNum(index + 1);
+        wp[index] = panel;
     }
     
     /**
@@ -60,7 +77,7 @@ public class WizardModel{
      * @return the current panels panel descriptor.
      */
     public WizardPanelDescriptor getCurrentPanelDesc(){
-        return currentPanel;
+        return currentIndex < 0 ? null : wp[currentIndex];
     }
     
     /**
@@ -69,7 +86,8 @@ public class WizardModel{
      * @return the panel descriptor required.
      */
     public WizardPanelDescriptor getPanelDesc(Object id){
-        return (WizardPanelDescriptor) wp.get(id);
+        int index = indexOf(id);
+        return index < 0 ? null : wp[index];
     }
     
     /**
@@ -77,7 +95,7 @@ public class WizardModel{
      * @param id the id of the descriptor to be set as the current pael.
      */
     public void setCurrentPanelDesc(Object id){ 
-        currentPanel = (WizardPanelDescriptor) wp.get(id);
+        currentIndex = indexOf(id);
     }   
     
     /**
@@ -86,24 +104,59 @@ public class WizardModel{
      * @return  the total number of steps.
      */
     public int totalNum(){
-        return wp.size();
+        return count;
     }
     
     /**
      * Clears the wizard model, but does not remove any static panels that may have been registered.
+     * The ClassPanels of the removed steps are released and kept for reuse by getClassPanel.
      *
      * This method should be called when the currently selected pattern is changed by the choice panel.
-     * If this is not done, the hashMap will continue to fill.
+     * If this is not done, the model will continue to fill.
      */
     public void clearWizardModel(){
-        Object id1 = "ChoicePanel";
-        
-        step = 1;
-        WizardPanelDescriptor temp1 = (WizardPanelDescriptor)wp.get(id1);
-        wp.clear();
-        wp.put(id1, temp1);
-        step++;
+        WizardPanelDescriptor choice = getPanelDesc(CHOICE_PANEL_ID);
+        for(int i = 0; i < count; i++){
+            if(wp[i] != choice && wp[i].getPanel() instanceof ClassPanel){
+                ClassPanel panel = (ClassPanel)wp[i].getPanel();
+                panel.release();
+                if(panelPool.size() < MAX_POOLED_PANELS){
+                    panelPool.add(panel);
+                }
+            }
+            wp[i] = null;
+        }
+        count = 0;
+        currentIndex = -1;
+        if(choice != null){
+            registerWizardPanel(CHOICE_PANEL_ID, choice);
+        }
+    }
+    
+    /**
+     * Returns a ClassPanel bound to a component, reusing a released panel if there is one.
+     * All panels of this model belong to the same wizard and PatternModel.
+     * @param parent the wizard the panel belongs to.
+     * @param model the pattern model being used.
+     * @param compId the id of the component to which the panel is related.
+     * @return the bound panel.
+     */
+    public ClassPanel getClassPanel(Wizard parent, PatternModel model, Object compId){
+        if(panelPool.isEmpty()){
+            return new ClassPanel(parent, model, compId);
+        }
+        ClassPanel panel = panelPool.remove(panelPool.size() - 1);
+        panel.bind(compId);
+        return panel;
     }
     
+    private int indexOf(Object id){
+        for(int i = 0; i < count; i++){
+            if(wp[i].getPanelID() == null ? id == null : wp[i].getPanelID().equals(id)){
+                return i;
+            }
+        }
+        return -1;
+    }
     
 }
@@ -20,12 +20,12 @@
 package org.patterncoder.wizard.panels;
 
 import javax.swing.JPanel;
-import java.util.Observer;
+import org.patterncoder.pattern.PatternListener;
 
 /**
  * @author Michael Nairn
  */
-public abstract class AbstractWizardPanel extends JPanel implements Observer,WizardPanel {
+public abstract class AbstractWizardPanel extends JPanel implements PatternListener,WizardPanel {
     
     /** Creates a new instance of AbstractWizardPanel */
     public AbstractWizardPanel() {
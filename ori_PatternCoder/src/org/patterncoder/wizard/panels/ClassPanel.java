@@ -19,8 +19,6 @@
 
 package org.patterncoder.wizard.panels;
 
-import java.util.Observer;
-import java.util.Observable;
 
 import javax.swing.JEditorPane;
 import javax.swing.text.StyledDocument;
@@ -32,6 +30,7 @@ import java.awt.BorderLayout;
 
 import org.patterncoder.wizard.Wizard;
 import org.patterncoder.pattern.PatternClass;
+import org.patterncoder.pattern.PatternEvent;
 import org.patterncoder.pattern.PatternModel;
 import org.patterncoder.PatternCoderException;
 
@@ -40,6 +39,8 @@ import org.patterncoder.PatternCoderException;
  *
  * A class panel step is used in the wizard to allow the renaming of each of the components of a pattern.
  * A class panel should be created for each of these components.
+ * Panels are recycled by the WizardModel: a panel that is no longer needed is released and bound to
+ * the component of another step with bind, instead of building a new form.
  * This class also displays the information about the specific component.
  *
  * @author Michael Nairn
@@ -60,11 +61,30 @@ public class ClassPanel extends AbstractWizardPanel{
     public ClassPanel(Wizard parent, PatternModel model, Object compId) {
         this.parent = parent;
         this.model = model;
+        initComponents();
+        bind(compId);
+    }
+
+    /**
+     * Binds the panel to a component of the current pattern, and displays its data.
+     * The panel listens to image changes of the model until it is released.
+     * @param compId the id of the component to which this panel is related.
+     */
+    public void bind(Object compId) {
         this.compId = compId;
-        model.addObserver(this);
         this.thisComp = model.getPatternComp(compId);
-        initComponents();
+        model.addPatternListener(PatternEvent.Kind.IMAGE_READY, this);
         setComponentFields();
+        setImage(model.getImage());
+    }
+
+    /**
+     * Releases the panel from its component; it no longer listens to the model.
+     */
+    public void release() {
+        model.removePatternListener(this);
+        this.thisComp = null;
+        this.compId = null;
     }
 
     /** This method is called from within the constructor to
@@ -280,13 +300,12 @@ public class ClassPanel extends AbstractWizardPanel{
     // End of variables declaration//GEN-END:variables
 
     /**
-     * Called when the PatternModel, to which this class is registered a listener with, is changed.
+     * Called when the image of the PatternModel, to which this class is registered a listener with, is changed.
      * This is use to update the image displayed throughout the wizard.
-     * @param t
-     * @param o
+     * @param event the IMAGE_READY event
      */
-    public void update(Observable t, Object o){
-        setImage(model.getImage());
+    public void patternChanged(PatternEvent event){
+        setImage(event.getImage());
     }
 
     /**
@@ -19,13 +19,13 @@
 
 package org.patterncoder.wizard.panels;
 
-import java.util.Observer;
-import java.util.Observable;
 import javax.swing.JTextArea;
 import javax.swing.JScrollPane;
 import java.util.ArrayList;
 import java.util.List;
 import java.io.*;
+import org.patterncoder.pattern.PatternEvent;
+import org.patterncoder.pattern.PatternListener;
 import org.patterncoder.pattern.PatternModel;
 import org.patterncoder.PatternCoderException;
 
@@ -43,6 +43,8 @@ public class PatternChooser extends AbstractWizardPanel{
     /*Instance of the model containing data about the current pattern*/
     private PatternModel model;
     private org.patterncoder.wizard.WizardModel wModel;
+    /*True while the selection is set back to the current pattern*/
+    private boolean reverting = false;
 
 
     /**
@@ -51,7 +53,8 @@ public class PatternChooser extends AbstractWizardPanel{
      */
     public PatternChooser(PatternModel model){
         this.model = model;
-        this.model.addObserver(this);
+        this.model.addPatternListener(PatternEvent.Kind.PATTERN_SELECTED, this);
+        this.model.addPatternListener(PatternEvent.Kind.IMAGE_READY, this);
         initComponents();
         this.setSize(642, 378);
         addPatterns(model().getPatterns());
@@ -251,7 +254,18 @@ public class PatternChooser extends AbstractWizardPanel{
      *Informs model of any change to currently selected patern
      */
     private void cmbChooserActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cmbChooserActionPerformed
-        model().setCurrentPattern(cmbChooser.getSelectedItem().toString(),cmbChooser.getSelectedIndex());
+        if(reverting){
+            return;
+        }
+        if(!model().setCurrentPattern(cmbChooser.getSelectedItem().toString(),cmbChooser.getSelectedIndex())){
+            //the file of the selected pattern is invalid, the current pattern stays selected
+            reverting = true;
+            try{
+                cmbChooser.setSelectedIndex(model().getCurrentIndex());
+            }finally{
+                reverting = false;
+            }
+        }
     }//GEN-LAST:event_cmbChooserActionPerformed
 
 
@@ -281,15 +295,17 @@ public class PatternChooser extends AbstractWizardPanel{
      *Description and image should be updated
      */
     /**
-     * Updates the model when a change occurs.
-     * Implemented as part of the Observer interface.
-     * @param t Observable object
-     * @param o Object
-     * @see Observer
+     * Updates the description or the image when the model changes.
+     * Implemented as part of the PatternListener interface.
+     * @param event the PATTERN_SELECTED or IMAGE_READY event
+     * @see PatternListener
      */
-    public void update(Observable t, Object o){
-        setDescription(model().getDescription());
-        setImage(model().getImage());
+    public void patternChanged(PatternEvent event){
+        if(event.getKind() == PatternEvent.Kind.PATTERN_SELECTED){
+            setDescription(event.getDescription());
+        }else{
+            setImage(event.getImage());
+        }
     }
 
     /*Sets the description of the current pattern*/